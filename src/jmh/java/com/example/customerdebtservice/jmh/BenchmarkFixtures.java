@@ -0,0 +1,65 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.currency.converters.CurrencyConverter;
+import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.currency.services.impl.CurrencyServiceImpl;
+import com.example.customerdebtservice.customer.converters.CustomerConverter;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.models.Debt;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds the datasets and the converter graph shared by the benchmarks, without starting Spring
+ */
+final class BenchmarkFixtures {
+    static final List<Currency> CURRENCIES = List.of(
+            new Currency(1L, "Euro", "EUR", "€"),
+            new Currency(2L, "Dollar", "USD", "$"),
+            new Currency(3L, "Lats", "LVL", "Ls"));
+
+    private BenchmarkFixtures() {
+    }
+
+    static Customer customerWithDebts(int debts) {
+        final Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("Benchmark");
+        customer.setSurname("Customer");
+        customer.setCountry("Latvia");
+        customer.setEmail("benchmark@test.com");
+        customer.setPassword("password");
+        for (int i = 0; i < debts; i++) {
+            final Debt debt = new Debt();
+            debt.setId((long) i + 1);
+            debt.setAmount(BigDecimal.valueOf(i % 1000 + 1, 2));
+            debt.setDueDate(LocalDate.of(2022, 1, 1).plusDays(i % 365));
+            debt.setCurrency(CURRENCIES.get(i % CURRENCIES.size()));
+            debt.setCustomer(customer);
+            customer.getDebts().add(debt);
+        }
+        return customer;
+    }
+
+    /**
+     * Creates debt converter backed by a loaded currency snapshot, as it is wired in the application
+     */
+    static DebtConverter debtConverter() {
+        final CurrencyRepository currencyRepository = mock(CurrencyRepository.class);
+        when(currencyRepository.findAll()).thenReturn(CURRENCIES);
+        final CurrencyServiceImpl currencyService = new CurrencyServiceImpl(currencyRepository, new CurrencyConverter());
+        currencyService.refreshCurrencies();
+        return new DebtConverter(currencyService);
+    }
+
+    static CustomerConverter customerConverter() {
+        return new CustomerConverter(debtConverter());
+    }
+}
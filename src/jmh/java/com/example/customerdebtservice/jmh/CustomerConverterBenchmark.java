@@ -0,0 +1,37 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.customer.converters.CustomerConverter;
+import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.models.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conversion of a customer with embedded debts to Customer Data
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerConverterBenchmark {
+
+    @Param({"0", "10", "1000", "10000"})
+    private int debts;
+
+    private CustomerConverter customerConverter;
+    private Customer customer;
+
+    @Setup
+    public void setup() {
+        customerConverter = BenchmarkFixtures.customerConverter();
+        customer = BenchmarkFixtures.customerWithDebts(debts);
+    }
+
+    @Benchmark
+    public CustomerData convertCustomer() {
+        return customerConverter.convert(customer);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON serialization of Customer Data with embedded debts, as written by GET /customers/{id}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerSerializationBenchmark {
+
+    @Param({"0", "10", "1000", "10000"})
+    private int debts;
+
+    private ObjectMapper objectMapper;
+    private CustomerData customerData;
+
+    @Setup
+    public void setup() {
+        // Same defaults as the ObjectMapper auto-configured by Spring Boot (JavaTimeModule, ISO dates)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        customerData = BenchmarkFixtures.customerConverter().convert(BenchmarkFixtures.customerWithDebts(debts));
+    }
+
+    @Benchmark
+    public byte[] serializeCustomer() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customerData);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.currency.converters.CurrencyConverter;
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.models.Debt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conversion of a single debt and currency, the building blocks of every debt and customer response
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DebtConverterBenchmark {
+
+    private final CurrencyConverter currencyConverter = new CurrencyConverter();
+    private DebtConverter debtConverter;
+    private Debt debt;
+    private Currency currency;
+
+    @Setup
+    public void setup() {
+        debtConverter = BenchmarkFixtures.debtConverter();
+        debt = BenchmarkFixtures.customerWithDebts(1).getDebts().get(0);
+        currency = debt.getCurrency();
+    }
+
+    @Benchmark
+    public DebtData convertDebt() {
+        return debtConverter.convert(debt);
+    }
+
+    @Benchmark
+    public CurrencyData convertCurrency() {
+        return currencyConverter.convert(currency);
+    }
+}
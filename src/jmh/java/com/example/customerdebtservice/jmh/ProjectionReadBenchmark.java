@@ -0,0 +1,132 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.CustomerDebtServiceApplication;
+import com.example.customerdebtservice.customer.converters.CustomerConverter;
+import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.jpa.QueryHints;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares reading managed entities and converting them with reading projections straight into the response shape,
+ * for a customer with all its debts and for a page of debts. Both sides run in a transaction, so that the entity side
+ * includes the dirty checking of its snapshots on commit. Run with "-prof gc" to compare allocations per operation:
+ * ./mvnw test -Pjmh -Djmh.args="ProjectionReadBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionReadBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int debts;
+
+    private static final int SEED_CHUNK = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final Pageable PAGE = PageRequest.of(0, PAGE_SIZE);
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private DebtService debtService;
+    private CustomerConverter customerConverter;
+    private DebtConverter debtConverter;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private Long customerId;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(CustomerDebtServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:jmh-projection-" + debts + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        customerService = context.getBean(CustomerService.class);
+        debtService = context.getBean(DebtService.class);
+        customerConverter = context.getBean(CustomerConverter.class);
+        debtConverter = context.getBean(DebtConverter.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        customerId = customerService.createCustomer(
+                new CustomerForm("Benchmark", "Customer", "Latvia", "benchmark@test.com", "password")).getId();
+        seedDebts(context.getBean(ObjectMapper.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CustomerData customerFromEntities() {
+        return transactionTemplate.execute(status -> customerConverter.convert(entityManager
+                .createQuery("select distinct c from Customer c left join fetch c.debts d " +
+                        "left join fetch d.currency where c.id = :id", Customer.class)
+                .setParameter("id", customerId)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getSingleResult()));
+    }
+
+    @Benchmark
+    public CustomerData customerFromProjections() {
+        return transactionTemplate.execute(status -> customerService.getCustomerById(customerId));
+    }
+
+    @Benchmark
+    public List<DebtData> debtPageFromEntities() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select d from Debt d join fetch d.currency order by d.id", Debt.class)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList().stream()
+                .limit(PAGE_SIZE)
+                .map(debtConverter::convert)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public CursorPage<DebtData> debtPageFromProjections() {
+        return transactionTemplate.execute(status -> debtService.getDebtsAfter("", PAGE));
+    }
+
+    private void seedDebts(ObjectMapper objectMapper) throws IOException {
+        for (int seeded = 0; seeded < debts; seeded += SEED_CHUNK) {
+            final StringBuilder body = new StringBuilder();
+            for (int i = seeded; i < Math.min(debts, seeded + SEED_CHUNK); i++) {
+                body.append("{\"amount\": \"").append(i % 1000 + 1)
+                        .append("\", \"currency\": \"EUR\", \"dueDate\": \"2022-03-01\", \"customerId\": ")
+                        .append(customerId).append("}\n");
+            }
+            try (DebtBatchReader reader = new DebtBatchReader(objectMapper,
+                    new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)))) {
+                debtService.createDebts(reader);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.customerdebtservice.jmh;
+
+import com.example.customerdebtservice.CustomerDebtServiceApplication;
+import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read paths of customer and debt services against an embedded H2 database,
+ * seeded with a customer owning the given number of debts
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceReadBenchmark {
+
+    @Param({"0", "10", "1000", "10000"})
+    private int debts;
+
+    private static final int SEED_CHUNK = 10_000;
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private DebtService debtService;
+    private Long customerId;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(CustomerDebtServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:jmh-" + debts + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        customerService = context.getBean(CustomerService.class);
+        debtService = context.getBean(DebtService.class);
+        customerId = customerService.createCustomer(
+                new CustomerForm("Benchmark", "Customer", "Latvia", "benchmark@test.com", "password")).getId();
+        seedDebts(context.getBean(ObjectMapper.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CustomerData getCustomerById() {
+        return customerService.getCustomerById(customerId);
+    }
+
+    @Benchmark
+    public Slice<CustomerData> getCustomers() {
+        return customerService.getCustomers(PAGE);
+    }
+
+    @Benchmark
+    public Slice<DebtData> getDebts() {
+        return debtService.getDebts(PAGE);
+    }
+
+    @Benchmark
+    public CursorPage<DebtData> getDebtsAfter() {
+        return debtService.getDebtsAfter("", PAGE);
+    }
+
+    private void seedDebts(ObjectMapper objectMapper) throws IOException {
+        for (int seeded = 0; seeded < debts; seeded += SEED_CHUNK) {
+            final StringBuilder body = new StringBuilder();
+            for (int i = seeded; i < Math.min(debts, seeded + SEED_CHUNK); i++) {
+                body.append("{\"amount\": \"").append(i % 1000 + 1)
+                        .append("\", \"currency\": \"EUR\", \"dueDate\": \"2022-03-01\", \"customerId\": ")
+                        .append(customerId).append("}\n");
+            }
+            try (DebtBatchReader reader = new DebtBatchReader(objectMapper,
+                    new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)))) {
+                debtService.createDebts(reader);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.customerdebtservice;
+
+import com.example.customerdebtservice.datagen.DataGenerator;
+import com.example.customerdebtservice.datagen.DataGeneratorOptions;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Fills the configured database with synthetic customers and debts, then exits. Run with:
+ * ./mvnw spring-boot:run -Dstart-class=com.example.customerdebtservice.DataGeneratorApplication
+ * -Dspring-boot.run.arguments="--customers=1000000 --debts=20000000 --zipf-exponent=1.0"
+ */
+public class DataGeneratorApplication {
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CustomerDebtServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            context.getBean(DataGenerator.class)
+                    .generate(DataGeneratorOptions.from(context.getBean(ApplicationArguments.class)));
+        }
+    }
+}
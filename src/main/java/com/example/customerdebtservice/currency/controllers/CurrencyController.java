@@ -0,0 +1,32 @@
+package com.example.customerdebtservice.currency.controllers;
+
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/currencies")
+@RequiredArgsConstructor
+@Slf4j
+public class CurrencyController {
+
+    private final CurrencyService currencyService;
+    private static final String URL_PATH = "/currencies";
+
+    /**
+     * Currencies are served from memory, call after changing currency table to apply the change immediately
+     * instead of waiting for the scheduled refresh
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<List<CurrencyData>> refreshCurrencies() {
+        log.info("POST request: " + URL_PATH + "/refresh");
+        return ResponseEntity.ok().body(currencyService.refreshCurrencies());
+    }
+}
@@ -9,11 +9,6 @@ import org.springframework.stereotype.Component;
 public class CurrencyConverter implements Converter<Currency, CurrencyData> {
     @Override
     public CurrencyData convert(Currency source) {
-        CurrencyData target = new CurrencyData();
-        target.setId(source.getId());
-        target.setName(source.getName());
-        target.setCode(source.getCode());
-        target.setSymbol(source.getSymbol());
-        return target;
+        return new CurrencyData(source.getId(), source.getName(), source.getCode(), source.getSymbol());
     }
 }
@@ -1,15 +1,14 @@
 package com.example.customerdebtservice.currency.dto;
 
-import lombok.*;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@EqualsAndHashCode
-@ToString
+/**
+ * Immutable, so that a single instance per currency can be shared by every serialized debt
+ */
+@Value
 public class CurrencyData {
-    private Long id;
-    private String name;
-    private String code;
-    private String symbol;
+    Long id;
+    String name;
+    String code;
+    String symbol;
 }
@@ -1,11 +1,18 @@
 package com.example.customerdebtservice.currency.models;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
 
+import static com.example.customerdebtservice.shared.cache.SecondLevelCacheConfiguration.CURRENCY_REGION;
+
 @Entity
-@Data
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CURRENCY_REGION)
+@Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(of = {"name", "code", "symbol"})
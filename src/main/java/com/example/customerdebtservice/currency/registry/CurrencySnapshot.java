@@ -0,0 +1,58 @@
+package com.example.customerdebtservice.currency.registry;
+
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.models.Currency;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Immutable view of the currency table. It is never modified after creation, a refresh builds a new snapshot
+ * and replaces the old one, so that readers don't need any locking.
+ * Lookups hand out the shared currencies, which is safe as {@link Currency} and {@link CurrencyData} are immutable.
+ */
+public final class CurrencySnapshot {
+    public static final CurrencySnapshot EMPTY = new CurrencySnapshot(Map.of(), Map.of(), Map.of());
+
+    private final Map<String, Currency> currenciesByCode;
+    private final Map<Long, Currency> currenciesById;
+    private final Map<Long, CurrencyData> currencyDataById;
+
+    private CurrencySnapshot(Map<String, Currency> currenciesByCode, Map<Long, Currency> currenciesById,
+                             Map<Long, CurrencyData> currencyDataById) {
+        this.currenciesByCode = currenciesByCode;
+        this.currenciesById = currenciesById;
+        this.currencyDataById = currencyDataById;
+    }
+
+    public static CurrencySnapshot of(Collection<Currency> currencies, Function<Currency, CurrencyData> converter) {
+        final Map<String, Currency> byCode = new HashMap<>();
+        final Map<Long, Currency> byId = new HashMap<>();
+        final Map<Long, CurrencyData> dataById = new HashMap<>();
+        for (Currency currency : currencies) {
+            byCode.put(currency.getCode(), currency);
+            byId.put(currency.getId(), currency);
+            dataById.put(currency.getId(), converter.apply(currency));
+        }
+        return new CurrencySnapshot(Map.copyOf(byCode), Map.copyOf(byId), Map.copyOf(dataById));
+    }
+
+    public Optional<Currency> findByCode(String code) {
+        return Optional.ofNullable(code).map(currenciesByCode::get);
+    }
+
+    public Optional<Currency> findById(Long id) {
+        return Optional.ofNullable(id).map(currenciesById::get);
+    }
+
+    public Optional<CurrencyData> findDataById(Long id) {
+        return Optional.ofNullable(id).map(currencyDataById::get);
+    }
+
+    public int size() {
+        return currenciesById.size();
+    }
+}
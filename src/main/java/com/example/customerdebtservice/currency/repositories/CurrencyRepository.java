@@ -2,11 +2,22 @@ package com.example.customerdebtservice.currency.repositories;
 
 import com.example.customerdebtservice.currency.models.Currency;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static com.example.customerdebtservice.shared.cache.SecondLevelCacheConfiguration.CURRENCY_BY_CODE_REGION;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 @Repository
 public interface CurrencyRepository extends JpaRepository<Currency, Long> {
+    /**
+     * Result is kept in the query cache until the currency table is changed through Hibernate
+     */
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = CURRENCY_BY_CODE_REGION)})
     Optional<Currency> findCurrencyByCode(String code);
 }
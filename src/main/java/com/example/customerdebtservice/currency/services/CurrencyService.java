@@ -1,17 +1,44 @@
 package com.example.customerdebtservice.currency.services;
 
+import com.example.customerdebtservice.currency.dto.CurrencyData;
 import com.example.customerdebtservice.currency.models.Currency;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+
 @Service
 public interface CurrencyService {
     /**
-     * Retrieve Currency object by code
+     * Retrieve Currency object by code from the in-memory currency snapshot
      *
      * @param code contains 3 symbols
-     * @return Currency object
+     * @return Currency object, detached from persistence context
      * @throws ResourceNotFoundException when Currency doesn't exist
      */
     Currency getCurrencyByCode(String code) throws ResourceNotFoundException;
+
+    /**
+     * Retrieve shared Currency Data of the currency, so that it isn't created again for every converted debt
+     *
+     * @param currency entity or reference, only its ID is read when currency is in the snapshot
+     * @return Currency Data, shared between calls for known currencies
+     */
+    CurrencyData getCurrencyData(Currency currency);
+
+    /**
+     * Retrieve shared Currency Data by currency ID from the in-memory currency snapshot
+     *
+     * @param id of currency
+     * @return Currency Data, empty when currency was added after the snapshot was loaded
+     */
+    Optional<CurrencyData> findCurrencyData(Long id);
+
+    /**
+     * Reloads currencies from database and replaces the in-memory snapshot
+     *
+     * @return Currency Data of all loaded currencies
+     */
+    List<CurrencyData> refreshCurrencies();
 }
@@ -1,21 +1,64 @@
 package com.example.customerdebtservice.currency.services.impl;
 
+import com.example.customerdebtservice.currency.converters.CurrencyConverter;
+import com.example.customerdebtservice.currency.dto.CurrencyData;
 import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.currency.registry.CurrencySnapshot;
 import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
 import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CurrencyServiceImpl implements CurrencyService {
     private final CurrencyRepository currencyRepository;
+    private final CurrencyConverter currencyConverter;
+
+    private volatile CurrencySnapshot snapshot = CurrencySnapshot.EMPTY;
 
     @Override
     public Currency getCurrencyByCode(String code) throws ResourceNotFoundException {
-        return currencyRepository.findCurrencyByCode(code)
+        return snapshot.findByCode(code)
                 .orElseThrow(() -> new ResourceNotFoundException("Cannot find currency for code: " + code));
     }
 
+    @Override
+    public CurrencyData getCurrencyData(Currency currency) {
+        return snapshot.findDataById(currency.getId()).orElseGet(() -> currencyConverter.convert(currency));
+    }
+
+    @Override
+    public Optional<CurrencyData> findCurrencyData(Long id) {
+        return snapshot.findDataById(id);
+    }
+
+    /**
+     * Lookups read the in-memory snapshot without a transaction, only reloading it reads the database.
+     * Reloaded currencies also replace those in the second-level cache, so that changes made directly
+     * in the currency table reach lazily loaded currencies too
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${currency.refresh-interval}", initialDelayString = "${currency.refresh-interval}")
+    public List<CurrencyData> refreshCurrencies() {
+        final List<Currency> currencies = currencyRepository.findAll();
+        final CurrencySnapshot loaded = CurrencySnapshot.of(currencies, currencyConverter::convert);
+        snapshot = loaded;
+        log.info("Loaded currencies: " + loaded.size());
+        return currencies.stream()
+                .map(currency -> loaded.findDataById(currency.getId()).orElseThrow())
+                .collect(Collectors.toList());
+    }
 }
@@ -1,13 +1,31 @@
 package com.example.customerdebtservice.customer.controllers;
 
 import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.customer.dto.CustomerDeletionData;
 import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
+import com.example.customerdebtservice.customer.services.CustomerDeletionService;
 import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.exceptions.UnsupportedPreconditionException;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -15,7 +33,10 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/customers")
@@ -25,18 +46,103 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerDeletionService customerDeletionService;
+    private final CustomerDebtSummaryService customerDebtSummaryService;
+    private final DebtService debtService;
     private static final String URL_PATH = "/customers";
+    private static final String INCLUDE_DEBTS = "debts";
 
+    /**
+     * Passing "after" parameter (empty for the first page) switches to keyset pagination,
+     * the cursor of the next page is then returned in {@value CursorPage#NEXT_CURSOR_HEADER} header.
+     * Offset pages are returned without a count query, {@value PaginationHeaders#HAS_NEXT} header tells
+     * whether a next page exists, "withTotal=true" adds a cached {@value PaginationHeaders#TOTAL_COUNT} header.
+     * Customers are listed without debts, with debt count and totals per currency,
+     * "include=debts" returns customers with all their debts instead
+     */
     @GetMapping
-    public ResponseEntity<List<CustomerData>> getCustomers(@PageableDefault(size = 20) Pageable pageable) {
+    public ResponseEntity<List<?>> getCustomers(@PageableDefault(size = 20) Pageable pageable,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(defaultValue = "false") boolean withTotal,
+                                                @RequestParam(defaultValue = "") Set<String> include) {
         log.info("GET request: " + URL_PATH);
-        return ResponseEntity.ok().body(customerService.getCustomers(pageable));
+        final boolean withDebts = include.contains(INCLUDE_DEBTS);
+        if (Objects.nonNull(after)) {
+            final CursorPage<?> page = withDebts ? customerService.getCustomersAfter(after, pageable)
+                    : customerService.getCustomerSummariesAfter(after, pageable);
+            final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getContent());
+        }
+        final Slice<?> slice = withDebts ? customerService.getCustomers(pageable)
+                : customerService.getCustomerSummaries(pageable);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(PaginationHeaders.HAS_NEXT, String.valueOf(slice.hasNext()));
+        if (withTotal) {
+            response.header(PaginationHeaders.TOTAL_COUNT, String.valueOf(customerService.countCustomers()));
+        }
+        return response.body(slice.getContent());
     }
 
+    /**
+     * Lists debt totals per customer and currency, sortable by totalAmount, debtCount, nearestDueDate or customerId.
+     * Pages are returned without a count query, {@value PaginationHeaders#HAS_NEXT} header tells
+     * whether a next page exists
+     */
+    @GetMapping("/totals")
+    public ResponseEntity<List<CustomerDebtTotalData>> getTotals(@PageableDefault(size = 20) Pageable pageable,
+                                                                 @RequestParam(required = false) String currency) {
+        log.info("GET request: " + URL_PATH + "/totals");
+        final Slice<CustomerDebtTotalData> totals = customerDebtSummaryService.getTotals(currency, pageable);
+        return ResponseEntity.ok()
+                .header(PaginationHeaders.HAS_NEXT, String.valueOf(totals.hasNext()))
+                .body(totals.getContent());
+    }
+
+    @GetMapping("/{id}/totals")
+    public ResponseEntity<List<CustomerDebtTotalData>> getCustomerTotals(@PathVariable Long id) {
+        log.info("GET request: " + URL_PATH + "/" + id + "/totals");
+        return ResponseEntity.ok().body(customerDebtSummaryService.getCustomerTotals(id));
+    }
+
+    /**
+     * Pages through debts of the customer ordered by due date, the cursor of the next page is returned
+     * in {@value CursorPage#NEXT_CURSOR_HEADER} header. Debts can be filtered by currency code
+     * and by an inclusive due date range
+     */
+    @GetMapping("/{id}/debts")
+    public ResponseEntity<List<DebtData>> getCustomerDebts(
+            @PathVariable Long id,
+            @PageableDefault(size = 20) Pageable pageable,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo) {
+        log.info("GET request: " + URL_PATH + "/" + id + "/debts");
+        final CursorPage<DebtData> page = debtService.getCustomerDebts(id, currency, dueFrom, dueTo, after, pageable);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+
+    /**
+     * Returns 304 without a body when If-None-Match header contains the current ETag of the customer,
+     * the ETag changes with the customer and with any of its debts
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerData> getCustomer(@PathVariable Long id) {
+    public ResponseEntity<CustomerData> getCustomer(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch) {
         log.info("GET request: " + URL_PATH + "/" + id);
-        return ResponseEntity.ok().body(customerService.getCustomerById(id));
+        final VersionedData<CustomerData> customer = customerService.getCustomerById(id, ifNoneMatch);
+        if (!customer.isModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(customer.getETag()).build();
+        }
+        return ResponseEntity.ok().eTag(customer.getETag()).body(customer.getContent());
     }
 
     @PostMapping
@@ -47,18 +153,56 @@ public class CustomerController {
         return ResponseEntity.created(uri).body(customerService.createCustomer(customerForm));
     }
 
+    /**
+     * Returns 412 when If-Match header doesn't contain the current ETag of the customer
+     */
     @PutMapping("/{id}")
     public ResponseEntity<CustomerData> updateCustomer(@PathVariable Long id,
                                                        @Valid @RequestBody CustomerForm customerForm,
-                                                       BindingResult bindingResult) {
+                                                       BindingResult bindingResult,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                       String ifMatch) {
         log.info("PUT request: " + URL_PATH + "/" + id);
-        return ResponseEntity.ok().body(customerService.updateCustomer(id, customerForm));
+        final VersionedData<CustomerData> customer = customerService.updateCustomer(id, customerForm, ifMatch);
+        return ResponseEntity.ok().eTag(customer.getETag()).body(customer.getContent());
+    }
+
+    /**
+     * Changes only the attributes present in a JSON Merge Patch body, password is hashed only when it is present
+     */
+    @PatchMapping(value = "/{id}", consumes = {JsonMergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<CustomerData> patchCustomer(@PathVariable Long id, @RequestBody JsonNode patch) {
+        log.info("PATCH request: " + URL_PATH + "/" + id);
+        return ResponseEntity.ok().body(customerService.patchCustomer(id, patch));
     }
 
+    /**
+     * Passing "async=true" deletes the customer in background and returns 202 with the deletion job,
+     * which can be polled at the URL of Location header. Synchronous deletion returns 412
+     * when If-Match header doesn't contain the current ETag of the customer, background deletion commits debts
+     * in chunks and can't honour If-Match, so it returns 400 instead of ignoring the header
+     */
     @DeleteMapping("{id}")
-    public ResponseEntity<?> deleteCustomer(@PathVariable Long id) {
+    public ResponseEntity<?> deleteCustomer(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean async,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                            String ifMatch) {
         log.info("DELETE request: " + URL_PATH + "/" + id);
-        customerService.deleteCustomer(id);
+        if (async) {
+            if (StringUtils.hasText(ifMatch)) {
+                throw new UnsupportedPreconditionException("If-Match is not supported with async=true");
+            }
+            final CustomerDeletionData deletion = customerDeletionService.startDeletion(id);
+            final URI uri = URI.create(ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path(URL_PATH + "/deletions/" + deletion.getJobId()).toUriString());
+            return ResponseEntity.accepted().location(uri).body(deletion);
+        }
+        customerService.deleteCustomer(id, ifMatch);
         return ResponseEntity.ok().build();
     }
+
+    @GetMapping("/deletions/{jobId}")
+    public ResponseEntity<CustomerDeletionData> getDeletion(@PathVariable String jobId) {
+        log.info("GET request: " + URL_PATH + "/deletions/" + jobId);
+        return ResponseEntity.ok().body(customerDeletionService.getDeletion(jobId));
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.customerdebtservice.customer.converters;
+
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CustomerDebtTotalConverter implements Converter<CustomerDebtSummary, CustomerDebtTotalData> {
+
+    private final CurrencyService currencyService;
+
+    @Override
+    public CustomerDebtTotalData convert(CustomerDebtSummary source) {
+        CustomerDebtTotalData target = new CustomerDebtTotalData();
+        target.setCustomerId(source.getCustomerId());
+        target.setCurrency(currencyService.getCurrencyData(source.getCurrency()));
+        target.setTotalAmount(source.getTotalAmount());
+        target.setDebtCount(source.getDebtCount());
+        target.setNearestDueDate(source.getNearestDueDate());
+        return target;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.customerdebtservice.customer.dto;
+
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerDebtTotalData {
+    private Long customerId;
+    private CurrencyData currency;
+    private BigDecimal totalAmount;
+    private long debtCount;
+    private LocalDate nearestDueDate;
+}
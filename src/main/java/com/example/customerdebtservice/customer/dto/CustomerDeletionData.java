@@ -0,0 +1,19 @@
+package com.example.customerdebtservice.customer.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerDeletionData {
+    private String jobId;
+    private Long customerId;
+    private CustomerDeletionStatus status;
+    private long deletedDebts;
+    private String error;
+    private Instant finishedAt;
+}
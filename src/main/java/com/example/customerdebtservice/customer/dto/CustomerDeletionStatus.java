@@ -0,0 +1,8 @@
+package com.example.customerdebtservice.customer.dto;
+
+public enum CustomerDeletionStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,23 @@
+package com.example.customerdebtservice.customer.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Customer without its debts, carrying only debt totals per currency, so that its size doesn't grow with the debts
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerSummaryData {
+    private Long id;
+    private String name;
+    private String surname;
+    private String country;
+    private String email;
+    private long debtCount;
+    private List<CustomerDebtTotalData> totals;
+}
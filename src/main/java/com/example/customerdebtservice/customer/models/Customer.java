@@ -2,13 +2,20 @@ package com.example.customerdebtservice.customer.models;
 
 import com.example.customerdebtservice.debt.models.Debt;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.example.customerdebtservice.shared.cache.SecondLevelCacheConfiguration.CUSTOMER_REGION;
+
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CUSTOMER_REGION)
 @Table(name = "customer")
 @Data
 @AllArgsConstructor
@@ -31,7 +38,10 @@ public class Customer {
 
     private String password;
 
-    @OneToMany(mappedBy = "customer", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    @Version
+    private Long version;
+
+    @OneToMany(mappedBy = "customer", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Debt> debts = new ArrayList<>();
 
 }
@@ -0,0 +1,43 @@
+package com.example.customerdebtservice.customer.models;
+
+import com.example.customerdebtservice.currency.models.Currency;
+import lombok.*;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Debt totals of a customer in one currency, maintained together with debts, so that totals are read by primary key
+ * instead of aggregating debts
+ */
+@Entity
+@Table(name = "customer_debt_summary")
+@IdClass(CustomerDebtSummaryId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(of = {"customerId", "currencyId"})
+@ToString(of = {"customerId", "currencyId", "totalAmount"})
+public class CustomerDebtSummary {
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Id
+    @Column(name = "currency_id")
+    private Long currencyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "currency_id", insertable = false, updatable = false)
+    private Currency currency;
+
+    @Column(name = "total_amount")
+    private BigDecimal totalAmount;
+
+    @Column(name = "debt_count")
+    private long debtCount;
+
+    @Column(name = "nearest_due_date")
+    private LocalDate nearestDueDate;
+}
@@ -0,0 +1,15 @@
+package com.example.customerdebtservice.customer.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerDebtSummaryId implements Serializable {
+    private Long customerId;
+    private Long currencyId;
+}
@@ -0,0 +1,18 @@
+package com.example.customerdebtservice.customer.projections;
+
+/**
+ * Customer columns selected without the entity, so that neither debts nor the password are loaded
+ */
+public interface CustomerSummaryView {
+    Long getId();
+
+    String getName();
+
+    String getSurname();
+
+    String getCountry();
+
+    String getEmail();
+
+    Long getVersion();
+}
@@ -0,0 +1,39 @@
+package com.example.customerdebtservice.customer.projections;
+
+import com.example.customerdebtservice.debt.projections.DebtView;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Row of a customer joined with one of its debts and the currency of the debt, selected with a constructor
+ * expression, so that a customer with all its debts is read in one statement without hydrating entities
+ */
+@Getter
+public class CustomerWithDebtRow implements CustomerSummaryView {
+    private final Long id;
+    private final String name;
+    private final String surname;
+    private final String country;
+    private final String email;
+    private final Long version;
+    /**
+     * Debt of the row, null for a customer without debts
+     */
+    private final DebtView debt;
+
+    public CustomerWithDebtRow(Long id, String name, String surname, String country, String email, Long version,
+                               Long debtId, BigDecimal amount, LocalDate dueDate, Long debtVersion, Long currencyId,
+                               String currencyName, String currencyCode, String currencySymbol) {
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+        this.country = country;
+        this.email = email;
+        this.version = version;
+        this.debt = Objects.isNull(debtId) ? null : new DebtView(debtId, amount, dueDate, id, debtVersion, currencyId,
+                currencyName, currencyCode, currencySymbol);
+    }
+}
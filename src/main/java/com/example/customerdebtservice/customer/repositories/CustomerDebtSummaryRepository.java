@@ -0,0 +1,74 @@
+package com.example.customerdebtservice.customer.repositories;
+
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummaryId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerDebtSummaryRepository extends JpaRepository<CustomerDebtSummary, CustomerDebtSummaryId> {
+    List<CustomerDebtSummary> findAllByCustomerIdOrderByCurrencyId(Long customerId);
+
+    List<CustomerDebtSummary> findAllByCustomerIdInOrderByCurrencyId(Collection<Long> customerIds);
+
+    /**
+     * Fetches one row more than the page size to tell whether a next page exists, without a count query
+     */
+    Slice<CustomerDebtSummary> findAllBy(Pageable pageable);
+
+    Slice<CustomerDebtSummary> findAllByCurrencyId(Long currencyId, Pageable pageable);
+
+    /**
+     * Adds debts to existing summary in place, so that concurrent writers don't overwrite each other
+     *
+     * @return number of updated rows, 0 when customer has no debts in the currency yet
+     */
+    @Modifying
+    @Query("update CustomerDebtSummary s " +
+            "set s.totalAmount = s.totalAmount + :amount, s.debtCount = s.debtCount + :count, " +
+            "s.nearestDueDate = case when s.nearestDueDate <= :dueDate then s.nearestDueDate else :dueDate end " +
+            "where s.customerId = :customerId and s.currencyId = :currencyId")
+    int addDebts(@Param("customerId") Long customerId, @Param("currencyId") Long currencyId,
+                 @Param("amount") BigDecimal amount, @Param("count") long count, @Param("dueDate") LocalDate dueDate);
+
+    @Modifying
+    @Query("update CustomerDebtSummary s set s.totalAmount = s.totalAmount + :amount " +
+            "where s.customerId = :customerId and s.currencyId = :currencyId")
+    int adjustAmount(@Param("customerId") Long customerId, @Param("currencyId") Long currencyId,
+                     @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update CustomerDebtSummary s set s.totalAmount = s.totalAmount - :amount, s.debtCount = s.debtCount - 1 " +
+            "where s.customerId = :customerId and s.currencyId = :currencyId")
+    int removeDebt(@Param("customerId") Long customerId, @Param("currencyId") Long currencyId,
+                   @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("delete from CustomerDebtSummary s " +
+            "where s.customerId = :customerId and s.currencyId = :currencyId and s.debtCount <= 0")
+    int deleteEmptySummary(@Param("customerId") Long customerId, @Param("currencyId") Long currencyId);
+
+    /**
+     * Recalculates nearest due date only when the removed debt was the nearest one
+     */
+    @Modifying
+    @Query("update CustomerDebtSummary s set s.nearestDueDate = (select min(d.dueDate) from Debt d " +
+            "where d.customer.id = s.customerId and d.currency.id = s.currencyId) " +
+            "where s.customerId = :customerId and s.currencyId = :currencyId and s.nearestDueDate = :dueDate")
+    int refreshNearestDueDate(@Param("customerId") Long customerId, @Param("currencyId") Long currencyId,
+                              @Param("dueDate") LocalDate dueDate);
+
+    @Modifying
+    @Query("delete from CustomerDebtSummary s where s.customerId = :customerId")
+    int deleteSummariesByCustomerId(@Param("customerId") Long customerId);
+}
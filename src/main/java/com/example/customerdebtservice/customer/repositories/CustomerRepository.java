@@ -1,12 +1,66 @@
 package com.example.customerdebtservice.customer.repositories;
 
 import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.projections.CustomerSummaryView;
+import com.example.customerdebtservice.customer.projections.CustomerWithDebtRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+    String SELECT_SUMMARY = "select c.id as id, c.name as name, c.surname as surname, c.country as country, " +
+            "c.email as email, c.version as version from Customer c ";
+
     Optional<Customer> findByEmail(String email);
+
+    /**
+     * Pages over customer columns only, debts and their totals are read separately
+     */
+    @Query(SELECT_SUMMARY)
+    Slice<CustomerSummaryView> findSummaries(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "where c.id > :afterId order by c.id")
+    List<CustomerSummaryView> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Selects the customer with all its debts and their currencies in one statement, one row per debt
+     *
+     * @return rows ordered by debt ID, a single row without debt for a customer without debts,
+     * empty when customer doesn't exist
+     */
+    @Query("select new com.example.customerdebtservice.customer.projections.CustomerWithDebtRow(c.id, c.name, " +
+            "c.surname, c.country, c.email, c.version, d.id, d.amount, d.dueDate, d.version, cur.id, cur.name, " +
+            "cur.code, cur.symbol) from Customer c left join c.debts d left join d.currency cur " +
+            "where c.id = :id order by d.id")
+    List<CustomerWithDebtRow> findWithDebtRowsById(@Param("id") Long id);
+
+    @Query("select c.id from Customer c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes customer with a single statement, debts of the customer must be deleted before
+     *
+     * @return number of deleted rows, 0 when customer doesn't exist
+     */
+    @Modifying
+    @Query("delete from Customer c where c.id = :id")
+    int deleteCustomerById(@Param("id") Long id);
+
+    /**
+     * Deletes customer only when it wasn't modified since it was read, debts of the customer must be deleted before
+     *
+     * @return number of deleted rows, 0 when customer doesn't exist or has another version
+     */
+    @Modifying
+    @Query("delete from Customer c where c.id = :id and c.version = :version")
+    int deleteCustomerByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
@@ -0,0 +1,80 @@
+package com.example.customerdebtservice.customer.services;
+
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+public interface CustomerDebtSummaryService {
+    /**
+     * Retrieves debt totals of the customer per currency
+     *
+     * @param customerId - Customer ID
+     * @return totals of every currency the customer has debts in, empty when customer has no debts
+     * @throws ResourceNotFoundException when customer doesn't exist
+     */
+    List<CustomerDebtTotalData> getCustomerTotals(Long customerId) throws ResourceNotFoundException;
+
+    /**
+     * Retrieves debt totals of all customers in a pageable form, without counting them
+     *
+     * @param currency code of currency to filter by, null for all currencies
+     * @param pageable contains page, size and sort by totalAmount, debtCount, nearestDueDate or customerId
+     * @return totals per customer and currency, and whether a next page exists
+     * @throws ResourceNotFoundException when currency doesn't exist
+     */
+    Slice<CustomerDebtTotalData> getTotals(String currency, Pageable pageable) throws ResourceNotFoundException;
+
+    /**
+     * Adds debts to the totals, must be called in the transaction which creates the debts
+     *
+     * @param customerId     - Customer ID
+     * @param currencyId     - Currency ID
+     * @param amount         sum of the added debts
+     * @param count          number of the added debts
+     * @param nearestDueDate the earliest due date of the added debts
+     */
+    void addDebts(Long customerId, Long currencyId, BigDecimal amount, long count, LocalDate nearestDueDate);
+
+    /**
+     * Removes debt from the totals, must be called in the transaction which deletes the debt,
+     * after the debt is deleted or changed
+     *
+     * @param customerId - Customer ID
+     * @param currencyId - Currency ID
+     * @param amount     of the removed debt
+     * @param dueDate    of the removed debt
+     */
+    void removeDebt(Long customerId, Long currencyId, BigDecimal amount, LocalDate dueDate);
+
+    /**
+     * Adds signed change of a debt amount to the totals, must be called in the transaction which adjusts the debt
+     *
+     * @param customerId - Customer ID
+     * @param currencyId - Currency ID
+     * @param delta      change of the debt amount
+     */
+    void adjustAmount(Long customerId, Long currencyId, BigDecimal delta);
+
+    /**
+     * Removes debts deleted in bulk from the totals, must be called in the transaction which deletes the debts,
+     * after they are deleted. Only summaries of the passed customers and currencies are written
+     *
+     * @param totals of the deleted debts per customer and currency, aggregated before they were deleted
+     */
+    void removeDebts(List<DebtTotalView> totals);
+
+    /**
+     * Deletes all totals of the customer, must be called in the transaction which deletes all debts of the customer
+     *
+     * @param customerId - Customer ID
+     */
+    void deleteCustomerTotals(Long customerId);
+}
@@ -0,0 +1,27 @@
+package com.example.customerdebtservice.customer.services;
+
+import com.example.customerdebtservice.customer.dto.CustomerDeletionData;
+import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface CustomerDeletionService {
+    /**
+     * Starts deleting customer in background. Debts are deleted in chunks, each in its own transaction,
+     * so that deleting a customer with many debts doesn't hold one long transaction.
+     *
+     * @param customerId - Customer ID
+     * @return pending deletion job
+     * @throws ResourceNotFoundException when customer is not found in the database
+     */
+    CustomerDeletionData startDeletion(Long customerId) throws ResourceNotFoundException;
+
+    /**
+     * Retrieves state of the deletion job, jobs are kept in memory for a limited time after they finish
+     *
+     * @param jobId returned when deletion was started
+     * @return deletion job
+     * @throws ResourceNotFoundException when job doesn't exist or has expired
+     */
+    CustomerDeletionData getDeletion(String jobId) throws ResourceNotFoundException;
+}
@@ -1,12 +1,21 @@
 package com.example.customerdebtservice.customer.services;
 
 import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.dto.CustomerSummaryData;
 import com.example.customerdebtservice.customer.forms.CustomerForm;
 import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceExistsException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.exceptions.ServiceUnavailableException;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -16,9 +25,48 @@ public interface CustomerService {
      * Retrieves customers from database in a pageable form (page number, page size, sort)
      *
      * @param pageable contains Pageable data
-     * @return list of specific page number and page size sorted Customer Data
+     * @return slice of specific page number and page size sorted Customer Data,
+     * which knows only whether a next page exists
      */
-    List<CustomerData> getCustomers(Pageable pageable);
+    Slice<CustomerData> getCustomers(Pageable pageable);
+
+    /**
+     * Counts all customers, the count is cached for a short time as it is expensive on a large table
+     *
+     * @return approximate number of customers
+     */
+    long countCustomers();
+
+    /**
+     * Retrieves customers ordered by ID using keyset pagination, so that no count query is issued
+     * and the cost of a page doesn't depend on its depth
+     *
+     * @param after    cursor of the previous page, empty for the first page
+     * @param pageable contains page size, sort can only be by id (ascending)
+     * @return Customer Data of the page and cursor of the next page
+     * @throws InvalidPaginationException when cursor is malformed or sort is not supported
+     */
+    CursorPage<CustomerData> getCustomersAfter(String after, Pageable pageable) throws InvalidPaginationException;
+
+    /**
+     * Retrieves customers without their debts, with debt totals per currency read from the maintained summaries,
+     * so that the size and cost of a page don't depend on the number of debts
+     *
+     * @param pageable contains Pageable data
+     * @return slice of Customer Summary Data, which knows only whether a next page exists
+     */
+    Slice<CustomerSummaryData> getCustomerSummaries(Pageable pageable);
+
+    /**
+     * Retrieves customers without their debts ordered by ID using keyset pagination
+     *
+     * @param after    cursor of the previous page, empty for the first page
+     * @param pageable contains page size, sort can only be by id (ascending)
+     * @return Customer Summary Data of the page and cursor of the next page
+     * @throws InvalidPaginationException when cursor is malformed or sort is not supported
+     */
+    CursorPage<CustomerSummaryData> getCustomerSummariesAfter(String after, Pageable pageable)
+            throws InvalidPaginationException;
 
     /**
      * Retrieves Customer from database and returns Customer Data
@@ -30,31 +78,67 @@ public interface CustomerService {
      */
     CustomerData getCustomerById(Long id) throws ResourceNotFoundException;
 
+    /**
+     * Retrieves customer with its debts together with its entity tag, which changes with the customer
+     * and with any of its debts. The customer is converted only when the client doesn't have its current version
+     *
+     * @param id          - customer ID
+     * @param ifNoneMatch entity tags known to the client, null when there are none
+     * @return entity tag of the customer and Customer Data, without data when one of the passed tags is current
+     * @throws ResourceNotFoundException when customer is not found in the database
+     */
+    VersionedData<CustomerData> getCustomerById(Long id, String ifNoneMatch) throws ResourceNotFoundException;
+
     /**
      * Creates a new Customer from Customer Form
      *
      * @param customerForm - contains all customer fields
      * @return created Customer Data
-     * @throws ResourceExistsException when Customer already exists (e.g. such email exists in system)
+     * @throws ResourceExistsException     when Customer already exists (e.g. such email exists in system)
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
      */
-    CustomerData createCustomer(CustomerForm customerForm) throws ResourceExistsException;
+    CustomerData createCustomer(CustomerForm customerForm) throws ResourceExistsException, ServiceUnavailableException;
 
     /**
-     * Updates customer by replacing all existing attributes with the new attributes
+     * Updates customer by replacing all existing attributes with the new attributes.
+     * Password is hashed again only when it doesn't match the stored hash
      *
      * @param id           - Customer ID
      * @param customerForm - containing customer attributes
+     * @param ifMatch      entity tags of the customer versions the client has modified, null to update any version
+     * @return entity tag and data of the updated customer
+     * @throws ResourceNotFoundException   when customer is not found in the database
+     * @throws PreconditionFailedException when the customer has another version than the passed ones
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
+     */
+    VersionedData<CustomerData> updateCustomer(Long id, CustomerForm customerForm, String ifMatch)
+            throws ResourceNotFoundException, PreconditionFailedException, ServiceUnavailableException;
+
+    /**
+     * Updates only attributes present in a JSON Merge Patch, UPDATE statement contains only changed columns
+     * and password is hashed only when the patch contains it
+     *
+     * @param id    - Customer ID
+     * @param patch - merge patch of customer attributes
      * @return updated Customer Data
-     * @throws ResourceNotFoundException when customer is not found in the database
+     * @throws ResourceNotFoundException   when customer is not found in the database
+     * @throws ResourceExistsException     when patched email belongs to another customer
+     * @throws InvalidPatchException       when patch is not a JSON object or doesn't match customer attributes
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
      */
-    CustomerData updateCustomer(Long id, CustomerForm customerForm) throws ResourceNotFoundException;
+    CustomerData patchCustomer(Long id, JsonNode patch)
+            throws ResourceNotFoundException, ResourceExistsException, InvalidPatchException,
+            ServiceUnavailableException;
 
     /**
-     * Deletes customer from database if exists
+     * Deletes customer and all its debts with set-based statements in one transaction
      *
-     * @param id - Customer ID
+     * @param id      - Customer ID
+     * @param ifMatch entity tags of the customer versions the client has seen, null to delete any version
+     * @throws ResourceNotFoundException   when customer is not found in the database
+     * @throws PreconditionFailedException when the customer has another version than the passed ones
      */
-    void deleteCustomer(Long id);
+    void deleteCustomer(Long id, String ifMatch) throws ResourceNotFoundException, PreconditionFailedException;
 
     /**
      * Retrieves Customer by ID
@@ -63,4 +147,13 @@ public interface CustomerService {
      * @throws ResourceNotFoundException when customer doesn't exist
      */
     Customer findCustomerByIdOrThrow(Long id) throws ResourceNotFoundException;
+
+    /**
+     * Retrieves reference to existing Customer without loading it, e.g. to set it as an owner of a debt
+     *
+     * @param id of customer
+     * @return uninitialized Customer proxy, only its ID can be read without loading the customer
+     * @throws ResourceNotFoundException when customer doesn't exist
+     */
+    Customer getCustomerReferenceOrThrow(Long id) throws ResourceNotFoundException;
 }
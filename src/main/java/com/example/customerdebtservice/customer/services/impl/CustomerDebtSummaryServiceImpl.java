@@ -0,0 +1,134 @@
+package com.example.customerdebtservice.customer.services.impl;
+
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import com.example.customerdebtservice.customer.converters.CustomerDebtTotalConverter;
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Totals are read in read-only transactions, so that all statements of a request share one connection.
+ * Writes are mandatory read-write transactions, joining the debt write they belong to
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CustomerDebtSummaryServiceImpl implements CustomerDebtSummaryService {
+    private static final String INSERT_SUMMARY = "insert into customer_debt_summary " +
+            "(customer_id, currency_id, total_amount, debt_count, nearest_due_date) values (?, ?, ?, ?, ?)";
+    private static final String REMOVE_DEBTS = "update customer_debt_summary " +
+            "set total_amount = total_amount - ?, debt_count = debt_count - ? where customer_id = ? and currency_id = ?";
+    private static final String DELETE_EMPTY_SUMMARY = "delete from customer_debt_summary " +
+            "where customer_id = ? and currency_id = ? and debt_count <= 0";
+    private static final String REFRESH_NEAREST_DUE_DATE = "update customer_debt_summary s " +
+            "set nearest_due_date = (select min(d.due_date) from debt d " +
+            "where d.customer_id = s.customer_id and d.currency_id = s.currency_id) " +
+            "where s.customer_id = ? and s.currency_id = ? and s.nearest_due_date = ?";
+
+    private final CustomerDebtSummaryRepository customerDebtSummaryRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerDebtTotalConverter customerDebtTotalConverter;
+    private final CurrencyService currencyService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<CustomerDebtTotalData> getCustomerTotals(Long customerId) throws ResourceNotFoundException {
+        log.info("Retrieving debt totals of customer with ID: " + customerId);
+        final List<CustomerDebtSummary> summaries =
+                customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(customerId);
+        if (summaries.isEmpty() && !customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + customerId);
+        }
+        return summaries.stream().map(customerDebtTotalConverter::convert).collect(Collectors.toList());
+    }
+
+    @Override
+    public Slice<CustomerDebtTotalData> getTotals(String currency, Pageable pageable)
+            throws ResourceNotFoundException {
+        log.info("Retrieving debt totals of all customers");
+        final Slice<CustomerDebtSummary> summaries = Objects.isNull(currency)
+                ? customerDebtSummaryRepository.findAllBy(pageable)
+                : customerDebtSummaryRepository.findAllByCurrencyId(
+                currencyService.getCurrencyByCode(currency).getId(), pageable);
+        return summaries.map(customerDebtTotalConverter::convert);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addDebts(Long customerId, Long currencyId, BigDecimal amount, long count, LocalDate nearestDueDate) {
+        if (customerDebtSummaryRepository.addDebts(customerId, currencyId, amount, count, nearestDueDate) > 0) {
+            return;
+        }
+        // Inserted with plain JDBC, a failed Hibernate statement would mark the whole transaction for rollback
+        try {
+            jdbcTemplate.update(INSERT_SUMMARY, customerId, currencyId, amount, count, nearestDueDate);
+        } catch (DuplicateKeyException e) {
+            // Concurrent transaction inserted the summary after the update found none, it's committed by now
+            customerDebtSummaryRepository.addDebts(customerId, currencyId, amount, count, nearestDueDate);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeDebt(Long customerId, Long currencyId, BigDecimal amount, LocalDate dueDate) {
+        customerDebtSummaryRepository.removeDebt(customerId, currencyId, amount);
+        if (customerDebtSummaryRepository.deleteEmptySummary(customerId, currencyId) == 0) {
+            customerDebtSummaryRepository.refreshNearestDueDate(customerId, currencyId, dueDate);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjustAmount(Long customerId, Long currencyId, BigDecimal delta) {
+        customerDebtSummaryRepository.adjustAmount(customerId, currencyId, delta);
+    }
+
+    /**
+     * Each step is sent as one JDBC batch over the affected summaries, a nearest due date is recalculated
+     * only when it was the due date of a deleted debt
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeDebts(List<DebtTotalView> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(REMOVE_DEBTS, totals.stream()
+                .map(total -> new Object[]{total.getTotalAmount(), total.getDebtCount(), total.getCustomerId(),
+                        total.getCurrencyId()})
+                .collect(Collectors.toList()));
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_SUMMARY, totals.stream()
+                .map(total -> new Object[]{total.getCustomerId(), total.getCurrencyId()})
+                .collect(Collectors.toList()));
+        jdbcTemplate.batchUpdate(REFRESH_NEAREST_DUE_DATE, totals.stream()
+                .map(total -> new Object[]{total.getCustomerId(), total.getCurrencyId(), total.getNearestDueDate()})
+                .collect(Collectors.toList()));
+        log.info("Removed deleted debts from totals: " + totals.size());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteCustomerTotals(Long customerId) {
+        customerDebtSummaryRepository.deleteSummariesByCustomerId(customerId);
+    }
+}
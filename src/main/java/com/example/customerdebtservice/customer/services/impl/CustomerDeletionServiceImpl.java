@@ -0,0 +1,121 @@
+package com.example.customerdebtservice.customer.services.impl;
+
+import com.example.customerdebtservice.customer.dto.CustomerDeletionData;
+import com.example.customerdebtservice.customer.dto.CustomerDeletionStatus;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.customer.services.CustomerDeletionService;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
+import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerDeletionServiceImpl implements CustomerDeletionService {
+
+    private final CustomerService customerService;
+    private final CustomerRepository customerRepository;
+    private final CustomerDebtSummaryService customerDebtSummaryService;
+    private final DebtRepository debtRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int DEBT_CHUNK_SIZE = 5000;
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+
+    // Single worker, so that concurrent large deletions don't compete for the database
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("customer-deletion-"));
+    private final Map<String, CustomerDeletionData> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public CustomerDeletionData startDeletion(Long customerId) throws ResourceNotFoundException {
+        if (!customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + customerId);
+        }
+        removeExpiredJobs();
+        final CustomerDeletionData job = new CustomerDeletionData(UUID.randomUUID().toString(), customerId,
+                CustomerDeletionStatus.PENDING, 0, null, null);
+        jobs.put(job.getJobId(), job);
+        log.info("Scheduled deletion of customer with ID: " + customerId + ", job: " + job.getJobId());
+        executor.execute(() -> runDeletion(job.getJobId(), customerId));
+        return job;
+    }
+
+    @Override
+    public CustomerDeletionData getDeletion(String jobId) throws ResourceNotFoundException {
+        final CustomerDeletionData job = jobs.get(jobId);
+        if (Objects.isNull(job)) {
+            throw new ResourceNotFoundException("Customer deletion not found. ID: " + jobId);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runDeletion(String jobId, Long customerId) {
+        long deletedDebts = 0;
+        updateJob(jobId, customerId, CustomerDeletionStatus.RUNNING, deletedDebts, null);
+        try {
+            Integer deleted;
+            do {
+                // Each chunk is subtracted from the totals in its own transaction, so that a failed or lost job
+                // leaves the customer with the totals of its remaining debts
+                deleted = transactionTemplate.execute(status -> {
+                    final List<Long> ids = debtRepository.findIdsByCustomerId(customerId,
+                            PageRequest.of(0, DEBT_CHUNK_SIZE));
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    final List<DebtTotalView> totals = debtRepository.sumAllByIdIn(ids);
+                    final int chunk = debtRepository.deleteDebtsByIdIn(ids);
+                    customerDebtSummaryService.removeDebts(totals);
+                    return chunk;
+                });
+                deletedDebts += Objects.requireNonNullElse(deleted, 0);
+                updateJob(jobId, customerId, CustomerDeletionStatus.RUNNING, deletedDebts, null);
+            } while (Objects.nonNull(deleted) && deleted > 0);
+            // Deletes debts created in the meantime together with the customer
+            customerService.deleteCustomer(customerId, null);
+            updateJob(jobId, customerId, CustomerDeletionStatus.COMPLETED, deletedDebts, null);
+        } catch (RuntimeException ex) {
+            log.error("Deletion of customer with ID: " + customerId + " failed", ex);
+            updateJob(jobId, customerId, CustomerDeletionStatus.FAILED, deletedDebts, ex.getMessage());
+        }
+    }
+
+    private void updateJob(String jobId, Long customerId, CustomerDeletionStatus status, long deletedDebts,
+                           String error) {
+        final boolean finished = status == CustomerDeletionStatus.COMPLETED || status == CustomerDeletionStatus.FAILED;
+        // Jobs are replaced instead of modified, so that readers never see a partially updated job
+        jobs.put(jobId, new CustomerDeletionData(jobId, customerId, status, deletedDebts, error,
+                finished ? Instant.now() : null));
+    }
+
+    private void removeExpiredJobs() {
+        final Instant expiredBefore = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job ->
+                Objects.nonNull(job.getFinishedAt()) && job.getFinishedAt().isBefore(expiredBefore));
+    }
+}
@@ -1,47 +1,147 @@
 package com.example.customerdebtservice.customer.services.impl;
 
 import com.example.customerdebtservice.customer.converters.CustomerConverter;
+import com.example.customerdebtservice.customer.converters.CustomerDebtTotalConverter;
 import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.customer.dto.CustomerSummaryData;
 import com.example.customerdebtservice.customer.forms.CustomerForm;
 import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.projections.CustomerSummaryView;
+import com.example.customerdebtservice.customer.projections.CustomerWithDebtRow;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
 import com.example.customerdebtservice.customer.repositories.CustomerRepository;
 import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.security.PasswordHasher;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceExistsException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.etag.ETags;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.SeekCursor;
+import com.example.customerdebtservice.shared.pagination.TotalCountCache;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
-
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
+/**
+ * Methods run in read-only transactions unless annotated otherwise, so that all statements of a request share
+ * one connection and reads are neither flushed nor snapshotted for dirty checking
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final DebtRepository debtRepository;
+    private final CustomerDebtSummaryRepository customerDebtSummaryRepository;
     private final CustomerConverter customerConverter;
-    private final PasswordEncoder passwordEncoder;
+    private final CustomerDebtTotalConverter customerDebtTotalConverter;
+    private final DebtViewConverter debtViewConverter;
+    private final PasswordHasher passwordHasher;
+    private final TotalCountCache totalCountCache;
+    private final JsonMergePatch jsonMergePatch;
+
+    private static final String ID = "id";
+    private static final String PASSWORD = "password";
+    private static final String CUSTOMER_COUNT_KEY = "customers";
 
     @Override
-    public List<CustomerData> getCustomers(Pageable pageable) {
+    public Slice<CustomerData> getCustomers(Pageable pageable) {
         log.info("Retrieving all customers");
-        return customerRepository.findAll(pageable).toList().stream().map(customerConverter::convert)
-                .collect(Collectors.toList());
+        final Slice<CustomerSummaryView> customers = customerRepository.findSummaries(pageable);
+        return new SliceImpl<>(toCustomerData(customers.getContent()), pageable, customers.hasNext());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long countCustomers() {
+        return totalCountCache.get(CUSTOMER_COUNT_KEY, customerRepository::count);
+    }
+
+    @Override
+    public CursorPage<CustomerData> getCustomersAfter(String after, Pageable pageable)
+            throws InvalidPaginationException {
+        log.info("Retrieving customers after cursor: " + after);
+        final List<CustomerSummaryView> customers = customerRepository.findSummariesAfter(
+                decodeIdCursor(after, pageable), PageRequest.of(0, pageable.getPageSize() + 1));
+        final CursorPage<CustomerSummaryView> page = CursorPage.of(customers, pageable.getPageSize(),
+                customer -> SeekCursor.ofId(customer.getId()));
+        return new CursorPage<>(toCustomerData(page.getContent()), page.getNextCursor());
+    }
+
+    @Override
+    public Slice<CustomerSummaryData> getCustomerSummaries(Pageable pageable) {
+        log.info("Retrieving customer summaries");
+        final Slice<CustomerSummaryView> customers = customerRepository.findSummaries(pageable);
+        return new SliceImpl<>(toSummaryData(customers.getContent()), pageable, customers.hasNext());
+    }
+
+    @Override
+    public CursorPage<CustomerSummaryData> getCustomerSummariesAfter(String after, Pageable pageable)
+            throws InvalidPaginationException {
+        log.info("Retrieving customer summaries after cursor: " + after);
+        final List<CustomerSummaryView> customers = customerRepository.findSummariesAfter(
+                decodeIdCursor(after, pageable), PageRequest.of(0, pageable.getPageSize() + 1));
+        final CursorPage<CustomerSummaryView> page = CursorPage.of(customers, pageable.getPageSize(),
+                customer -> SeekCursor.ofId(customer.getId()));
+        return new CursorPage<>(toSummaryData(page.getContent()), page.getNextCursor());
     }
 
     @Override
     public CustomerData getCustomerById(Long id) throws ResourceNotFoundException {
         log.info("Retrieving customer with ID: " + id);
-        return customerConverter.convert(findCustomerByIdOrThrow(id));
+        final List<CustomerWithDebtRow> rows = findCustomerWithDebtRowsByIdOrThrow(id);
+        return toCustomerData(rows.get(0), debtsOf(rows));
     }
 
     @Override
+    public VersionedData<CustomerData> getCustomerById(Long id, String ifNoneMatch) throws ResourceNotFoundException {
+        log.info("Retrieving customer with ID: " + id);
+        final List<CustomerWithDebtRow> rows = findCustomerWithDebtRowsByIdOrThrow(id);
+        final List<DebtView> debts = debtsOf(rows);
+        final String eTag = eTag(rows.get(0).getVersion(), debts, DebtView::getId, DebtView::getVersion);
+        if (ETags.matchesNoneMatch(ifNoneMatch, eTag)) {
+            return VersionedData.notModified(eTag);
+        }
+        return new VersionedData<>(eTag, toCustomerData(rows.get(0), debts));
+    }
+
+    /**
+     * Runs without a transaction, so that no connection is held while the password is hashed,
+     * the unique email column still rejects a customer created concurrently with the same email
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CustomerData createCustomer(CustomerForm customerForm) throws ResourceExistsException {
         log.info("Creating new customer with email: " + customerForm.getEmail());
         if (customerRepository.findByEmail(customerForm.getEmail()).isPresent()) {
@@ -53,19 +153,75 @@ public class CustomerServiceImpl implements CustomerService {
         return customerConverter.convert(customerRepository.save(customer));
     }
 
+    /**
+     * Runs without a transaction, so that no connection is held while the password is hashed,
+     * the customer is saved in its own transaction and its version rejects the save when the customer
+     * was modified in the meantime
+     */
     @Override
-    public CustomerData updateCustomer(Long id, CustomerForm customerForm) throws ResourceNotFoundException {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VersionedData<CustomerData> updateCustomer(Long id, CustomerForm customerForm, String ifMatch)
+            throws ResourceNotFoundException, PreconditionFailedException {
         log.info("Updating customer with ID: " + id);
-        Customer customer = findCustomerByIdOrThrow(id);
+        // Debts are read as projections for the entity tag and the response, the customer alone is loaded
+        final List<CustomerWithDebtRow> rows = findCustomerWithDebtRowsByIdOrThrow(id, ifMatch);
+        final List<DebtView> debts = debtsOf(rows);
+        final Customer customer = findCustomerByIdOrThrow(id);
         populateCustomerFormToCustomer(customerForm, customer);
-        return customerConverter.convert(customerRepository.save(customer));
+        // Flushed right away, so that the returned entity tag contains the incremented version
+        final Customer saved = customerRepository.saveAndFlush(customer);
+        return new VersionedData<>(eTag(saved.getVersion(), debts, DebtView::getId, DebtView::getVersion),
+                toCustomerData(saved, debts));
+    }
+
+    /**
+     * Runs without a transaction for the same reason as {@link #updateCustomer}
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CustomerData patchCustomer(Long id, JsonNode patch) throws ResourceNotFoundException,
+            ResourceExistsException, InvalidPatchException {
+        log.info("Patching customer with ID: " + id);
+        final Customer customer = findCustomerByIdOrThrow(id);
+        final CustomerForm customerForm = jsonMergePatch.apply(new CustomerForm(customer.getName(),
+                customer.getSurname(), customer.getCountry(), customer.getEmail(), customer.getPassword()), patch);
+        if (!customerForm.getEmail().equals(customer.getEmail())
+                && customerRepository.findByEmail(customerForm.getEmail()).isPresent()) {
+            throw new ResourceExistsException("Customer with email " + customerForm.getEmail() + " already exists");
+        }
+        customer.setName(customerForm.getName());
+        customer.setSurname(customerForm.getSurname());
+        customer.setCountry(customerForm.getCountry());
+        customer.setEmail(customerForm.getEmail());
+        // The form starts with the stored hash, so the password is hashed only when the patch replaces it
+        if (patch.has(PASSWORD)) {
+            customer.setPassword(passwordHasher.hash(customerForm.getEmail(), customerForm.getPassword(),
+                    customer.getPassword()));
+        }
+        customerRepository.saveAndFlush(customer);
+        // Debts are read as projections after the save and never loaded
+        final List<CustomerWithDebtRow> rows = findCustomerWithDebtRowsByIdOrThrow(id);
+        return toCustomerData(rows.get(0), debtsOf(rows));
     }
 
     @Override
-    public void deleteCustomer(Long id) {
+    @Transactional
+    public void deleteCustomer(Long id, String ifMatch) throws ResourceNotFoundException,
+            PreconditionFailedException {
         log.info("Deleting customer with ID: " + id);
-        findCustomerByIdOrThrow(id);
-        customerRepository.deleteById(id);
+        final Long version = StringUtils.hasText(ifMatch)
+                ? findCustomerWithDebtRowsByIdOrThrow(id, ifMatch).get(0).getVersion() : null;
+        customerDebtSummaryRepository.deleteSummariesByCustomerId(id);
+        final int deletedDebts = debtRepository.deleteDebtsByCustomerId(id);
+        if (Objects.nonNull(version)) {
+            // Version condition catches modifications committed after the customer was read
+            if (customerRepository.deleteCustomerByIdAndVersion(id, version) == 0) {
+                throw new PreconditionFailedException("Customer was modified. ID: " + id);
+            }
+        } else if (customerRepository.deleteCustomerById(id) == 0) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + id);
+        }
+        log.info("Deleted customer with ID: " + id + " and debts: " + deletedDebts);
     }
 
     @Override
@@ -74,13 +230,135 @@ public class CustomerServiceImpl implements CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found. ID: " + id));
     }
 
+    @Override
+    public Customer getCustomerReferenceOrThrow(Long id) {
+        if (Objects.isNull(id) || !customerRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + id);
+        }
+        return customerRepository.getById(id);
+    }
+
+    /**
+     * @return rows of the customer, at least one
+     */
+    private List<CustomerWithDebtRow> findCustomerWithDebtRowsByIdOrThrow(Long id) {
+        final List<CustomerWithDebtRow> rows = customerRepository.findWithDebtRowsById(id);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + id);
+        }
+        return rows;
+    }
+
+    private static List<DebtView> debtsOf(List<CustomerWithDebtRow> rows) {
+        return rows.stream().map(CustomerWithDebtRow::getDebt).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks If-Match against the same entity tag GET returns, computed from the rows without loading entities
+     *
+     * @return rows of the customer, at least one
+     */
+    private List<CustomerWithDebtRow> findCustomerWithDebtRowsByIdOrThrow(Long id, String ifMatch) {
+        final List<CustomerWithDebtRow> rows = findCustomerWithDebtRowsByIdOrThrow(id);
+        if (!ETags.matchesIfMatch(ifMatch, eTag(rows.get(0).getVersion(), debtsOf(rows), DebtView::getId,
+                DebtView::getVersion))) {
+            throw new PreconditionFailedException("Customer was modified. ID: " + id);
+        }
+        return rows;
+    }
+
+    /**
+     * Customer representation contains its debts, which are versioned separately,
+     * so the tag combines the customer version with a checksum of IDs and versions of the debts
+     */
+    private static <T> String eTag(Long version, Collection<T> debts, Function<T, Long> idOf,
+                                   Function<T, Long> versionOf) {
+        final CRC32 checksum = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        debts.stream()
+                .sorted(Comparator.comparing(idOf))
+                .forEach(debt -> {
+                    buffer.clear();
+                    buffer.putLong(idOf.apply(debt)).putLong(versionOf.apply(debt));
+                    checksum.update(buffer.array());
+                });
+        return ETags.of(version + "-" + debts.size() + "-" + Long.toHexString(checksum.getValue()));
+    }
+
+    /**
+     * @return ID after which the page starts, 0 for the first page
+     */
+    private static Long decodeIdCursor(String after, Pageable pageable) throws InvalidPaginationException {
+        final Sort sort = pageable.getSort();
+        if (sort.isSorted() && !sort.equals(Sort.by(ID))) {
+            throw new InvalidPaginationException("Cursor pagination supports only ascending sort by " + ID);
+        }
+        final SeekCursor cursor = StringUtils.hasText(after) ? SeekCursor.decode(after) : null;
+        if (Objects.nonNull(cursor) && cursor.hasKey()) {
+            throw new InvalidPaginationException("Cursor doesn't match sort by " + ID);
+        }
+        return Objects.isNull(cursor) ? 0L : cursor.getId();
+    }
+
+    /**
+     * Reads totals of the whole page with one query on the summary table, debts themselves are not read
+     */
+    private List<CustomerSummaryData> toSummaryData(List<CustomerSummaryView> customers) {
+        if (customers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Map<Long, List<CustomerDebtTotalData>> totalsByCustomerId = customerDebtSummaryRepository
+                .findAllByCustomerIdInOrderByCurrencyId(customers.stream()
+                        .map(CustomerSummaryView::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .map(customerDebtTotalConverter::convert)
+                .collect(Collectors.groupingBy(CustomerDebtTotalData::getCustomerId));
+        return customers.stream().map(customer -> {
+            final List<CustomerDebtTotalData> totals =
+                    totalsByCustomerId.getOrDefault(customer.getId(), Collections.emptyList());
+            return new CustomerSummaryData(customer.getId(), customer.getName(), customer.getSurname(),
+                    customer.getCountry(), customer.getEmail(),
+                    totals.stream().mapToLong(CustomerDebtTotalData::getDebtCount).sum(), totals);
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads debts of the whole page with one query, customers keep the order of the page
+     */
+    private List<CustomerData> toCustomerData(List<CustomerSummaryView> customers) {
+        if (customers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Map<Long, List<DebtView>> debtsByCustomerId = debtRepository.findAllByCustomerIdIn(customers.stream()
+                        .map(CustomerSummaryView::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(DebtView::getCustomerId));
+        return customers.stream()
+                .map(customer -> toCustomerData(customer,
+                        debtsByCustomerId.getOrDefault(customer.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private CustomerData toCustomerData(CustomerSummaryView customer, List<DebtView> debts) {
+        return new CustomerData(customer.getId(), customer.getName(), customer.getSurname(), customer.getCountry(),
+                customer.getEmail(), debts.stream().map(debtViewConverter::convert).collect(Collectors.toList()));
+    }
+
+    private CustomerData toCustomerData(Customer customer, List<DebtView> debts) {
+        return new CustomerData(customer.getId(), customer.getName(), customer.getSurname(), customer.getCountry(),
+                customer.getEmail(), debts.stream().map(debtViewConverter::convert).collect(Collectors.toList()));
+    }
+
     private void populateCustomerFormToCustomer(final CustomerForm source, final Customer target) {
         if (Objects.nonNull(source) && Objects.nonNull(target)) {
             target.setName(source.getName());
             target.setSurname(source.getSurname());
             target.setCountry(source.getCountry());
             target.setEmail(source.getEmail());
-            target.setPassword(passwordEncoder.encode(source.getPassword()));
+            // Unchanged password keeps its hash, so that other updates skip hashing it again
+            target.setPassword(passwordHasher.hash(source.getEmail(), source.getPassword(), target.getPassword()));
         }
     }
 }
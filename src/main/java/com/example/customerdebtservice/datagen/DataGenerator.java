@@ -0,0 +1,144 @@
+package com.example.customerdebtservice.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills customer and debt tables with synthetic data for performance work. Rows are written with JDBC batch
+ * inserts and explicit IDs reserved from the sequences, all customers share one pre-hashed password.
+ * Meant to run against an idle database, see {@link com.example.customerdebtservice.DataGeneratorApplication}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataGenerator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    static final String PASSWORD = "password";
+    /**
+     * Increment of the pooled debt sequence, see V3__POOL_DEBT_SEQUENCE.sql
+     */
+    private static final int DEBT_SEQUENCE_INCREMENT = 50;
+    private static final String INSERT_CUSTOMER =
+            "INSERT INTO customer(id, name, surname, country, email, password) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DEBT =
+            "INSERT INTO debt(id, amount, due_date, customer_id, currency_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_SUMMARY = "INSERT INTO customer_debt_summary" +
+            "(customer_id, currency_id, total_amount, debt_count, nearest_due_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String[] NAMES = {"Anna", "Janis", "Liga", "Peteris", "Marta", "Andris", "Ilze", "Karlis"};
+    private static final String[] SURNAMES = {"Berzina", "Ozols", "Kalnina", "Liepa", "Krumina", "Eglitis"};
+    private static final String[] COUNTRIES = {"Latvia", "Lithuania", "Estonia", "Finland", "Poland", "Germany"};
+    private static final int DUE_DATE_RANGE_DAYS = 3 * 365;
+
+    /**
+     * Inserts customers and their debts, debts per customer follow a Zipf distribution
+     * and the debt totals of the generated customers are filled in afterwards
+     *
+     * @param options number of rows, skew and batch size
+     * @return range of generated customer IDs and number of debts
+     */
+    public DataGeneratorResult generate(DataGeneratorOptions options) {
+        final long start = System.nanoTime();
+        final Random random = new Random(options.getSeed());
+        final List<Long> currencyIds = jdbcTemplate.queryForList("SELECT id FROM currency ORDER BY id", Long.class);
+        final String passwordHash = passwordEncoder.encode(PASSWORD);
+        final int[] debtsPerCustomer = ZipfDebtDistribution.splitShuffled(options.getCustomers(), options.getDebts(),
+                options.getZipfExponent(), random);
+
+        final long firstCustomerId = reserveIds("sequence_customer", options.getCustomers(), 1);
+        long debtId = reserveIds("sequence_debt", options.getDebts(), DEBT_SEQUENCE_INCREMENT);
+        final LocalDate firstDueDate = LocalDate.now().minusYears(1);
+
+        final List<Object[]> debts = new ArrayList<>(options.getBatchSize());
+        for (int offset = 0; offset < options.getCustomers(); offset += options.getBatchSize()) {
+            final int chunkSize = Math.min(options.getBatchSize(), options.getCustomers() - offset);
+            final List<Object[]> customers = new ArrayList<>(chunkSize);
+            for (int i = offset; i < offset + chunkSize; i++) {
+                final long customerId = firstCustomerId + i;
+                customers.add(new Object[]{customerId, pick(NAMES, random), pick(SURNAMES, random),
+                        pick(COUNTRIES, random), "generated-" + customerId + "@example.com", passwordHash});
+            }
+            insert(INSERT_CUSTOMER, customers);
+
+            final List<Object[]> summaries = new ArrayList<>();
+            for (int i = offset; i < offset + chunkSize; i++) {
+                final long customerId = firstCustomerId + i;
+                // Totals are accumulated while generating, instead of aggregating the inserted debts afterwards
+                final BigDecimal[] totals = new BigDecimal[currencyIds.size()];
+                final long[] counts = new long[currencyIds.size()];
+                final LocalDate[] nearestDueDates = new LocalDate[currencyIds.size()];
+                for (int j = 0; j < debtsPerCustomer[i]; j++) {
+                    final int currency = random.nextInt(currencyIds.size());
+                    final BigDecimal amount = BigDecimal.valueOf(random.nextInt(1_000_000) + 1, 2);
+                    final LocalDate dueDate = firstDueDate.plusDays(random.nextInt(DUE_DATE_RANGE_DAYS));
+                    debts.add(new Object[]{debtId++, amount, Date.valueOf(dueDate), customerId,
+                            currencyIds.get(currency)});
+                    totals[currency] = counts[currency]++ == 0 ? amount : totals[currency].add(amount);
+                    if (nearestDueDates[currency] == null || dueDate.isBefore(nearestDueDates[currency])) {
+                        nearestDueDates[currency] = dueDate;
+                    }
+                    if (debts.size() == options.getBatchSize()) {
+                        insert(INSERT_DEBT, debts);
+                        debts.clear();
+                    }
+                }
+                for (int currency = 0; currency < currencyIds.size(); currency++) {
+                    if (counts[currency] > 0) {
+                        summaries.add(new Object[]{customerId, currencyIds.get(currency), totals[currency],
+                                counts[currency], Date.valueOf(nearestDueDates[currency])});
+                    }
+                }
+            }
+            insert(INSERT_DEBT, debts);
+            debts.clear();
+            insert(INSERT_SUMMARY, summaries);
+            log.info("Generated customers: " + (offset + chunkSize) + "/" + options.getCustomers());
+        }
+
+        final DataGeneratorResult result = new DataGeneratorResult(firstCustomerId,
+                firstCustomerId + options.getCustomers() - 1, options.getDebts(),
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Generated " + options.getCustomers() + " customers and " + options.getDebts() + " debts in "
+                + result.getElapsed());
+        return result;
+    }
+
+    /**
+     * Reserves a range of IDs by moving the sequence past it, so that IDs generated by Hibernate afterwards
+     * don't collide with the inserted rows. Pooled sequences hand out the (increment) IDs below their value,
+     * so the range starts after the current value and the sequence restarts one increment past the range
+     *
+     * @return first reserved ID
+     */
+    private long reserveIds(String sequence, long count, int increment) {
+        final Long current = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        final long first = current + 1;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + count + increment - 1));
+        return first;
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+        }
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
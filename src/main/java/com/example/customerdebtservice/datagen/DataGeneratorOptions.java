@@ -0,0 +1,37 @@
+package com.example.customerdebtservice.datagen;
+
+import lombok.Value;
+import org.springframework.boot.ApplicationArguments;
+
+import java.util.List;
+
+/**
+ * Options of the data generator, read from command line arguments such as "--customers=1000000"
+ */
+@Value
+public class DataGeneratorOptions {
+    int customers;
+    long debts;
+    double zipfExponent;
+    int batchSize;
+    long seed;
+
+    public static DataGeneratorOptions from(ApplicationArguments arguments) {
+        final DataGeneratorOptions options = new DataGeneratorOptions(
+                Integer.parseInt(option(arguments, "customers", "1000")),
+                Long.parseLong(option(arguments, "debts", "20000")),
+                Double.parseDouble(option(arguments, "zipf-exponent", "1.0")),
+                Integer.parseInt(option(arguments, "batch-size", "5000")),
+                Long.parseLong(option(arguments, "seed", "42")));
+        if (options.customers <= 0 || options.debts < 0 || options.zipfExponent < 0 || options.batchSize <= 0) {
+            throw new IllegalArgumentException("Expected positive customers and batch-size, " +
+                    "non-negative debts and zipf-exponent: " + options);
+        }
+        return options;
+    }
+
+    private static String option(ApplicationArguments arguments, String name, String defaultValue) {
+        final List<String> values = arguments.getOptionValues(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+    }
+}
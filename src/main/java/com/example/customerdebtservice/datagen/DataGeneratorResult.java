@@ -0,0 +1,13 @@
+package com.example.customerdebtservice.datagen;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class DataGeneratorResult {
+    long firstCustomerId;
+    long lastCustomerId;
+    long debts;
+    Duration elapsed;
+}
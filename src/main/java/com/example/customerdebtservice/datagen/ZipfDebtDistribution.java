@@ -0,0 +1,61 @@
+package com.example.customerdebtservice.datagen;
+
+import java.util.Random;
+
+/**
+ * Splits a total number of debts among customers by Zipf's law: the customer of rank r gets a share
+ * proportional to 1 / r^exponent, so that a few customers own most debts and most customers own a few
+ */
+public final class ZipfDebtDistribution {
+
+    private ZipfDebtDistribution() {
+    }
+
+    /**
+     * Splits debts by rank, shares are rounded cumulatively, so that the counts add up exactly to the total
+     *
+     * @param customers  number of ranks
+     * @param totalDebts number of debts to split
+     * @param exponent   skew of the distribution, 0 splits debts evenly
+     * @return debts of each rank, the first element belongs to rank 1
+     */
+    public static int[] split(int customers, long totalDebts, double exponent) {
+        double harmonic = 0;
+        for (int rank = 1; rank <= customers; rank++) {
+            harmonic += weight(rank, exponent);
+        }
+        final int[] debts = new int[customers];
+        double cumulativeWeight = 0;
+        long assigned = 0;
+        for (int rank = 1; rank <= customers; rank++) {
+            cumulativeWeight += weight(rank, exponent);
+            final long cumulative = rank == customers
+                    ? totalDebts
+                    : Math.min(totalDebts, Math.round(totalDebts * cumulativeWeight / harmonic));
+            debts[rank - 1] = Math.toIntExact(cumulative - assigned);
+            assigned = cumulative;
+        }
+        return debts;
+    }
+
+    /**
+     * Splits debts by rank and assigns the ranks to customers in random order,
+     * so that the skew is not correlated with customer IDs
+     *
+     * @return debts of each customer in insertion order
+     */
+    public static int[] splitShuffled(int customers, long totalDebts, double exponent, Random random) {
+        final int[] debts = split(customers, totalDebts, exponent);
+        for (int i = debts.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int swapped = debts[i];
+            debts[i] = debts[j];
+            debts[j] = swapped;
+        }
+        return debts;
+    }
+
+    private static double weight(int rank, double exponent) {
+        return 1 / Math.pow(rank, exponent);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.customerdebtservice.debt.batch;
+
+import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads Debt Forms one by one from a JSON array or newline delimited JSON, without reading the whole body.
+ * Rows which are valid JSON, but cannot be bound to Debt Form (e.g. wrong date format) are returned
+ * with a binding error, so that the rest of the batch can still be processed.
+ */
+public class DebtBatchReader implements Closeable {
+    private final ObjectMapper objectMapper;
+    private final MappingIterator<JsonNode> iterator;
+    private int index = 0;
+
+    public DebtBatchReader(ObjectMapper objectMapper, InputStream inputStream) throws IOException {
+        this.objectMapper = objectMapper;
+        this.iterator = objectMapper.readerFor(JsonNode.class).readValues(inputStream);
+    }
+
+    /**
+     * Reads next row
+     *
+     * @return next row or null when there are no more rows
+     * @throws IOException when body is not a valid JSON
+     */
+    public DebtBatchRow read() throws IOException {
+        if (!iterator.hasNextValue()) {
+            return null;
+        }
+        final JsonNode node = iterator.nextValue();
+        final int rowIndex = index++;
+        try {
+            return new DebtBatchRow(rowIndex, objectMapper.treeToValue(node, DebtForm.class), null);
+        } catch (JsonProcessingException ex) {
+            return new DebtBatchRow(rowIndex, null, "Cannot deserialize debt: " + ex.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
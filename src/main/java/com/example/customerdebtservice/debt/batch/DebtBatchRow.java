@@ -0,0 +1,22 @@
+package com.example.customerdebtservice.debt.batch;
+
+import com.example.customerdebtservice.debt.forms.DebtForm;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Objects;
+
+/**
+ * Single row of a debt batch: either bound Debt Form or the reason why the row couldn't be bound
+ */
+@Data
+@AllArgsConstructor
+public class DebtBatchRow {
+    private int index;
+    private DebtForm debtForm;
+    private String bindingError;
+
+    public boolean isBound() {
+        return Objects.nonNull(debtForm);
+    }
+}
@@ -1,20 +1,43 @@
 package com.example.customerdebtservice.debt.controllers;
 
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.dto.DebtBatchResultData;
 import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.dto.DebtDeleteResultData;
+import com.example.customerdebtservice.debt.export.DebtExportFormat;
+import com.example.customerdebtservice.debt.export.DebtExportWriter;
+import com.example.customerdebtservice.debt.forms.DebtAdjustmentForm;
 import com.example.customerdebtservice.debt.forms.DebtForm;
 import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Pattern;
+import java.io.IOException;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/debts")
@@ -24,18 +47,69 @@ import java.util.List;
 public class DebtController {
 
     private final DebtService debtService;
+    private final ObjectMapper objectMapper;
     private static final String URL_PATH = "/debts";
 
+    /**
+     * Passing "after" parameter (empty for the first page) switches to keyset pagination,
+     * the cursor of the next page is then returned in {@value CursorPage#NEXT_CURSOR_HEADER} header.
+     * Offset pages are returned without a count query, {@value PaginationHeaders#HAS_NEXT} header tells
+     * whether a next page exists, "withTotal=true" adds a cached {@value PaginationHeaders#TOTAL_COUNT} header
+     */
     @GetMapping()
-    public ResponseEntity<List<DebtData>> getDebts(Pageable pageable) {
+    public ResponseEntity<List<DebtData>> getDebts(Pageable pageable,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "false") boolean withTotal) {
         log.info("GET request: " + URL_PATH);
-        return ResponseEntity.ok().body(debtService.getDebts(pageable));
+        if (Objects.nonNull(after)) {
+            final CursorPage<DebtData> page = debtService.getDebtsAfter(after, pageable);
+            final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getContent());
+        }
+        final Slice<DebtData> slice = debtService.getDebts(pageable);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(PaginationHeaders.HAS_NEXT, String.valueOf(slice.hasNext()));
+        if (withTotal) {
+            response.header(PaginationHeaders.TOTAL_COUNT, String.valueOf(debtService.countDebts()));
+        }
+        return response.body(slice.getContent());
     }
 
+    /**
+     * Streams all debts as NDJSON or CSV, rows are written to the response as they are read from database
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDebts(
+            @RequestParam(defaultValue = "ndjson")
+            @Pattern(regexp = "ndjson|csv", message = "Export format should be ndjson or csv") String format) {
+        log.info("GET request: " + URL_PATH + "/export");
+        final DebtExportFormat exportFormat = DebtExportFormat.valueOf(format.toUpperCase());
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=debts." + exportFormat.getExtension())
+                .body(outputStream -> {
+                    try (DebtExportWriter writer = exportFormat.createWriter(objectMapper, outputStream)) {
+                        debtService.exportDebts(writer);
+                    }
+                });
+    }
+
+    /**
+     * Returns 304 without a body when If-None-Match header contains the current ETag of the debt
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<DebtData> getDebt(@PathVariable Long id) {
+    public ResponseEntity<DebtData> getDebt(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                            String ifNoneMatch) {
         log.info("GET request: " + URL_PATH + "/" + id);
-        return ResponseEntity.ok().body(debtService.getDebtById(id));
+        final VersionedData<DebtData> debt = debtService.getDebtById(id, ifNoneMatch);
+        if (!debt.isModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(debt.getETag()).build();
+        }
+        return ResponseEntity.ok().eTag(debt.getETag()).body(debt.getContent());
     }
 
     @PostMapping()
@@ -46,19 +120,73 @@ public class DebtController {
         return ResponseEntity.created(uri).body(debtService.createDebt(debtForm));
     }
 
+    /**
+     * Imports debts from a JSON array or NDJSON body, the body is read row by row while debts are inserted
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<DebtBatchResultData> createDebts(HttpServletRequest request) throws IOException {
+        log.info("POST request: " + URL_PATH + "/batch");
+        try (DebtBatchReader reader = new DebtBatchReader(objectMapper, request.getInputStream())) {
+            return ResponseEntity.ok().body(debtService.createDebts(reader));
+        }
+    }
+
+    /**
+     * Returns 412 when If-Match header doesn't contain the current ETag of the debt
+     */
     @PutMapping("/{id}")
     public ResponseEntity<DebtData> updateDebt(@PathVariable Long id,
                                                @Valid @RequestBody DebtForm debtForm,
-                                               BindingResult bindingResult) {
+                                               BindingResult bindingResult,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch) {
         log.info("PUT request: " + URL_PATH + "/" + id);
-        return ResponseEntity.ok().body(debtService.updateDebt(id, debtForm));
+        final VersionedData<DebtData> debt = debtService.updateDebt(id, debtForm, ifMatch);
+        return ResponseEntity.ok().eTag(debt.getETag()).body(debt.getContent());
+    }
+
+    /**
+     * Changes only the attributes present in a JSON Merge Patch body, e.g. {"dueDate": "2022-06-01"}
+     */
+    @PatchMapping(value = "/{id}", consumes = {JsonMergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<DebtData> patchDebt(@PathVariable Long id, @RequestBody JsonNode patch) {
+        log.info("PATCH request: " + URL_PATH + "/" + id);
+        return ResponseEntity.ok().body(debtService.patchDebt(id, patch));
+    }
+
+    /**
+     * Adds signed delta to the debt amount atomically, e.g. {"delta": "-25.00"} for a payment,
+     * returns 400 for zero delta and 409 when the amount would become negative
+     */
+    @PostMapping("/{id}/adjust")
+    public ResponseEntity<DebtData> adjustDebt(@PathVariable Long id,
+                                               @Valid @RequestBody DebtAdjustmentForm adjustmentForm,
+                                               BindingResult bindingResult) {
+        log.info("POST request: " + URL_PATH + "/" + id + "/adjust");
+        return ResponseEntity.ok().body(debtService.adjustDebt(id, adjustmentForm.getDelta()));
     }
 
+    /**
+     * Returns 412 when If-Match header doesn't contain the current ETag of the debt
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteDebt(@PathVariable Long id) {
+    public ResponseEntity<?> deleteDebt(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                        String ifMatch) {
         log.info("DELETE request: " + URL_PATH + "/" + id);
-        debtService.deleteDebt(id);
+        debtService.deleteDebt(id, ifMatch);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Deletes debts by customer and/or due date in one statement, at least one filter is required
+     */
+    @DeleteMapping()
+    public ResponseEntity<DebtDeleteResultData> deleteDebts(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueBefore) {
+        log.info("DELETE request: " + URL_PATH);
+        return ResponseEntity.ok().body(debtService.deleteDebts(customerId, dueBefore));
+    }
+
 }
@@ -1,6 +1,6 @@
 package com.example.customerdebtservice.debt.converters;
 
-import com.example.customerdebtservice.currency.converters.CurrencyConverter;
+import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.debt.dto.DebtData;
 import com.example.customerdebtservice.debt.models.Debt;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +13,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class DebtConverter implements Converter<Debt, DebtData> {
 
-    private final CurrencyConverter currencyConverter;
+    private final CurrencyService currencyService;
 
     @Override
     public DebtData convert(Debt source) {
@@ -25,7 +25,7 @@ public class DebtConverter implements Converter<Debt, DebtData> {
             target.setCustomerId(source.getCustomer().getId());
         }
         if(Objects.nonNull(source.getCurrency())){
-            target.setCurrency(currencyConverter.convert(source.getCurrency()));
+            target.setCurrency(currencyService.getCurrencyData(source.getCurrency()));
         }
         return target;
     }
@@ -0,0 +1,25 @@
+package com.example.customerdebtservice.debt.converters;
+
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class DebtViewConverter implements Converter<DebtView, DebtData> {
+
+    private final CurrencyService currencyService;
+
+    @Override
+    public DebtData convert(DebtView source) {
+        // Selected currency columns are used only for currencies added after the snapshot was loaded
+        final CurrencyData currency = currencyService.findCurrencyData(source.getCurrencyId())
+                .orElseGet(() -> new CurrencyData(source.getCurrencyId(), source.getCurrencyName(),
+                        source.getCurrencyCode(), source.getCurrencySymbol()));
+        return new DebtData(source.getId(), source.getAmount(), source.getDueDate(), source.getCustomerId(), currency);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.customerdebtservice.debt.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class DebtBatchResultData {
+    private int created;
+    private int rejected;
+    private List<DebtBatchRowResultData> rows = new ArrayList<>();
+}
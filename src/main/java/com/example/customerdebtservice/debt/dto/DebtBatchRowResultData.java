@@ -0,0 +1,17 @@
+package com.example.customerdebtservice.debt.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class DebtBatchRowResultData {
+    private int index;
+    private DebtBatchRowStatus status;
+    private Long id;
+    private List<String> errors;
+}
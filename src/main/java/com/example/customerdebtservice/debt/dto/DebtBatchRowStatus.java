@@ -0,0 +1,6 @@
+package com.example.customerdebtservice.debt.dto;
+
+public enum DebtBatchRowStatus {
+    CREATED,
+    REJECTED
+}
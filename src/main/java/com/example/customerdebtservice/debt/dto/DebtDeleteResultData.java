@@ -0,0 +1,12 @@
+package com.example.customerdebtservice.debt.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class DebtDeleteResultData {
+    private int deleted;
+}
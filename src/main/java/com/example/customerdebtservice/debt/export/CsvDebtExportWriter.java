@@ -0,0 +1,52 @@
+package com.example.customerdebtservice.debt.export;
+
+import com.example.customerdebtservice.debt.dto.DebtData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Writes debts as CSV with a header row. All exported values are numbers, dates or currency codes,
+ * so they never need quoting.
+ */
+public class CsvDebtExportWriter implements DebtExportWriter {
+    private static final String HEADER = "id,amount,dueDate,customerId,currency";
+    private static final char SEPARATOR = ',';
+
+    private final Writer writer;
+
+    public CsvDebtExportWriter(OutputStream outputStream) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(DebtData debt) throws IOException {
+        writer.write(String.valueOf(debt.getId()));
+        writer.write(SEPARATOR);
+        writer.write(debt.getAmount().toPlainString());
+        writer.write(SEPARATOR);
+        writer.write(debt.getDueDate().toString());
+        writer.write(SEPARATOR);
+        writer.write(Objects.toString(debt.getCustomerId(), ""));
+        writer.write(SEPARATOR);
+        writer.write(Objects.nonNull(debt.getCurrency()) ? debt.getCurrency().getCode() : "");
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
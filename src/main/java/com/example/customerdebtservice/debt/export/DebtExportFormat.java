@@ -0,0 +1,32 @@
+package com.example.customerdebtservice.debt.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Getter
+@RequiredArgsConstructor
+public enum DebtExportFormat {
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON) {
+        @Override
+        public DebtExportWriter createWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+            return new NdjsonDebtExportWriter(objectMapper, outputStream);
+        }
+    },
+    CSV("csv", new MediaType("text", "csv")) {
+        @Override
+        public DebtExportWriter createWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+            return new CsvDebtExportWriter(outputStream);
+        }
+    };
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    public abstract DebtExportWriter createWriter(ObjectMapper objectMapper, OutputStream outputStream)
+            throws IOException;
+}
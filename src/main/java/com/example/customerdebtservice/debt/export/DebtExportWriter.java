@@ -0,0 +1,16 @@
+package com.example.customerdebtservice.debt.export;
+
+import com.example.customerdebtservice.debt.dto.DebtData;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported debts one by one to the underlying stream without buffering the whole export.
+ * Closing the writer flushes it, but leaves the underlying stream open.
+ */
+public interface DebtExportWriter extends Closeable {
+    void write(DebtData debt) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,44 @@
+package com.example.customerdebtservice.debt.export;
+
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes debts as newline delimited JSON, one Debt Data object per line, every line including the last one
+ * ends with a newline
+ */
+public class NdjsonDebtExportWriter implements DebtExportWriter {
+    private final ObjectWriter objectWriter;
+    private final JsonGenerator generator;
+
+    public NdjsonDebtExportWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        // Flushed by the caller in chunks instead of after every debt
+        this.objectWriter = objectMapper.writerFor(DebtData.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(DebtData debt) throws IOException {
+        objectWriter.writeValue(generator, debt);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
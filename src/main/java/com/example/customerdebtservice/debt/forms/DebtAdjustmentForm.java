@@ -0,0 +1,29 @@
+package com.example.customerdebtservice.debt.forms;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DebtAdjustmentForm {
+    /**
+     * Signed change of the debt amount, negative for payments
+     */
+    @NotNull(message = "Delta must not be null")
+    private BigDecimal delta;
+
+    /**
+     * Zero would bump the version of the debt and write its totals without changing anything
+     */
+    @AssertTrue(message = "Delta must not be zero")
+    private boolean isNonZeroDelta() {
+        return Objects.isNull(delta) || delta.signum() != 0;
+    }
+}
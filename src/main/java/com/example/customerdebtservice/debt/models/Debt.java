@@ -3,12 +3,14 @@ package com.example.customerdebtservice.debt.models;
 import com.example.customerdebtservice.currency.models.Currency;
 import com.example.customerdebtservice.customer.models.Customer;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@DynamicUpdate
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,7 +18,7 @@ import java.time.LocalDate;
 @ToString(of = {"id", "amount"})
 public class Debt {
     @Id
-    @SequenceGenerator(name = "sequence_debt", sequenceName = "sequence_debt", allocationSize = 1)
+    @SequenceGenerator(name = "sequence_debt", sequenceName = "sequence_debt", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequence_debt")
     private Long id;
 
@@ -25,7 +27,7 @@ public class Debt {
     @Column(name = "due_date")
     private LocalDate dueDate;
 
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.DETACH)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.DETACH)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
@@ -33,4 +35,7 @@ public class Debt {
     @JoinColumn(name = "currency_id", referencedColumnName = "id")
     private Currency currency;
 
+    @Version
+    private Long version;
+
 }
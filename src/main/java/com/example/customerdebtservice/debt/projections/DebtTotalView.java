@@ -0,0 +1,19 @@
+package com.example.customerdebtservice.debt.projections;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Debts of a customer in a currency aggregated without loading them, keyed like the customer debt summary
+ */
+public interface DebtTotalView {
+    Long getCustomerId();
+
+    Long getCurrencyId();
+
+    BigDecimal getTotalAmount();
+
+    Long getDebtCount();
+
+    LocalDate getNearestDueDate();
+}
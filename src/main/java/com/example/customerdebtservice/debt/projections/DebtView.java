@@ -0,0 +1,23 @@
+package com.example.customerdebtservice.debt.projections;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Debt columns and its currency selected with a constructor expression in the same statement,
+ * so that reads neither hydrate managed entities nor keep their snapshots in the persistence context
+ */
+@Value
+public class DebtView {
+    Long id;
+    BigDecimal amount;
+    LocalDate dueDate;
+    Long customerId;
+    Long version;
+    Long currencyId;
+    String currencyName;
+    String currencyCode;
+    String currencySymbol;
+}
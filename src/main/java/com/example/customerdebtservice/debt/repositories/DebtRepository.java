@@ -1,12 +1,186 @@
 package com.example.customerdebtservice.debt.repositories;
 
 import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface DebtRepository extends JpaRepository<Debt, Long> {
-    List<Debt> findAllByCustomerId(Long customerId);
+    int EXPORT_FETCH_SIZE = 1000;
+    /**
+     * Selects debts of read endpoints straight into {@link DebtView} together with their currency
+     */
+    String SELECT_VIEW = "select new com.example.customerdebtservice.debt.projections.DebtView(d.id, d.amount, " +
+            "d.dueDate, d.customer.id, d.version, c.id, c.name, c.code, c.symbol) from Debt d join d.currency c ";
+
+    /**
+     * Seeks a page of customer debts due within the range in the (customer_id, due_date) index, ordered by due date.
+     * Filters on the foreign key column, the derived query would join customer and filter on its primary key,
+     * which keeps the customer index of debt unused. Bounds are never null, so that every condition
+     * can narrow the index range, the first page passes the lower bound as the cursor date with ID 0
+     *
+     * @param dueFrom      lowest due date of the page, the later of the range start and the cursor date
+     * @param dueTo        highest due date of the range
+     * @param afterDueDate due date of the last debt of the previous page
+     * @param afterId      ID of the last debt of the previous page
+     */
+    @Query(SELECT_VIEW + "where d.customer.id = :customerId " +
+            "and d.dueDate >= :dueFrom and d.dueDate <= :dueTo " +
+            "and (d.dueDate > :afterDueDate or d.id > :afterId) order by d.dueDate, d.id")
+    List<DebtView> findAllByCustomerId(@Param("customerId") Long customerId, @Param("dueFrom") LocalDate dueFrom,
+                                   @Param("dueTo") LocalDate dueTo, @Param("afterDueDate") LocalDate afterDueDate,
+                                   @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Same seek as {@link #findAllByCustomerId} limited to one currency, kept apart from it,
+     * so that the (customer_id, currency_id, due_date) index is used instead of filtering currency row by row
+     */
+    @Query(SELECT_VIEW + "where d.customer.id = :customerId " +
+            "and c.id = :currencyId and d.dueDate >= :dueFrom and d.dueDate <= :dueTo " +
+            "and (d.dueDate > :afterDueDate or d.id > :afterId) order by d.dueDate, d.id")
+    List<DebtView> findAllByCustomerIdAndCurrencyId(@Param("customerId") Long customerId,
+                                                @Param("currencyId") Long currencyId,
+                                                @Param("dueFrom") LocalDate dueFrom, @Param("dueTo") LocalDate dueTo,
+                                                @Param("afterDueDate") LocalDate afterDueDate,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "currency")
+    Page<Debt> findAll(Pageable pageable);
+
+    /**
+     * Fetches one row more than the page size to tell whether a next page exists, without a count query
+     */
+    @Query(SELECT_VIEW)
+    Slice<DebtView> findAllBy(Pageable pageable);
+
+    @Query(SELECT_VIEW + "where d.id = :id")
+    Optional<DebtView> findViewById(@Param("id") Long id);
+
+    /**
+     * Debts of the customers ordered by ID within each customer
+     */
+    @Query(SELECT_VIEW + "where d.customer.id in :customerIds order by d.customer.id, d.id")
+    List<DebtView> findAllByCustomerIdIn(@Param("customerIds") Collection<Long> customerIds);
+
+    @Query(SELECT_VIEW + "where d.id > :afterId order by d.id")
+    List<DebtView> findAllAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_VIEW + "order by d.dueDate, d.id")
+    List<DebtView> findAllOrderByDueDate(Pageable pageable);
+
+    /**
+     * Leading "dueDate >=" condition lets the seek start inside the (due_date, id) index,
+     * the disjunction alone would be evaluated on every index entry before the cursor
+     */
+    @Query(SELECT_VIEW + "where d.dueDate >= :dueDate " +
+            "and (d.dueDate > :dueDate or d.id > :afterId) order by d.dueDate, d.id")
+    List<DebtView> findAllAfterDueDateAndId(@Param("dueDate") LocalDate dueDate, @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Streams all debts with a forward-only cursor, must be consumed and closed inside a transaction
+     */
+    @Query(SELECT_VIEW + "order by d.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    Stream<DebtView> streamAll();
+
+    /**
+     * Deletes debt only when it wasn't modified since it was read
+     *
+     * @return number of deleted rows, 0 when debt doesn't exist or has another version
+     */
+    @Modifying
+    @Query("delete from Debt d where d.id = :id and d.version = :version")
+    int deleteDebtByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Adds signed delta to the debt amount with a single statement, so that concurrent adjustments of the same debt
+     * are serialized by the row lock of the database instead of overwriting each other
+     *
+     * @return number of updated rows, 0 when debt doesn't exist or its amount would become negative
+     */
+    @Modifying
+    @Query("update Debt d set d.amount = d.amount + :delta, d.version = d.version + 1 " +
+            "where d.id = :id and d.amount + :delta >= 0")
+    int adjustAmount(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("delete from Debt d where d.customer.id = :customerId")
+    int deleteDebtsByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("select d.id from Debt d where d.customer.id = :customerId")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Debt d where d.id in :ids")
+    int deleteDebtsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Aggregates the debts per customer and currency, so that they can be subtracted from the totals
+     * before they are deleted
+     */
+    @Query("select d.customer.id as customerId, d.currency.id as currencyId, sum(d.amount) as totalAmount, " +
+            "count(d) as debtCount, min(d.dueDate) as nearestDueDate from Debt d " +
+            "where d.id in :ids group by d.customer.id, d.currency.id")
+    List<DebtTotalView> sumAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Aggregates debts of the customer due before the date per currency, so that they can be subtracted
+     * from the totals before they are deleted
+     */
+    @Query("select d.customer.id as customerId, d.currency.id as currencyId, sum(d.amount) as totalAmount, " +
+            "count(d) as debtCount, min(d.dueDate) as nearestDueDate from Debt d " +
+            "where d.customer.id = :customerId and d.dueDate < :dueBefore group by d.customer.id, d.currency.id")
+    List<DebtTotalView> sumAllByCustomerIdAndDueDateBefore(@Param("customerId") Long customerId,
+                                                           @Param("dueBefore") LocalDate dueBefore);
+
+    /**
+     * Aggregates debts of every customer due before the date per customer and currency, reads only the debts
+     * which are about to be deleted
+     */
+    @Query("select d.customer.id as customerId, d.currency.id as currencyId, sum(d.amount) as totalAmount, " +
+            "count(d) as debtCount, min(d.dueDate) as nearestDueDate from Debt d " +
+            "where d.dueDate < :dueBefore and d.customer.id is not null group by d.customer.id, d.currency.id")
+    List<DebtTotalView> sumAllByDueDateBefore(@Param("dueBefore") LocalDate dueBefore);
+
+    /**
+     * Deletes debts of the customer due before the date with a single statement
+     *
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("delete from Debt d where d.customer.id = :customerId and d.dueDate < :dueBefore")
+    int deleteAllByCustomerIdAndDueDateBefore(@Param("customerId") Long customerId,
+                                              @Param("dueBefore") LocalDate dueBefore);
+
+    /**
+     * Deletes debts of every customer due before the date with a single statement,
+     * kept apart from the customer filter, so that each statement can use its own index
+     *
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("delete from Debt d where d.dueDate < :dueBefore")
+    int deleteAllByDueDateBefore(@Param("dueBefore") LocalDate dueBefore);
 }
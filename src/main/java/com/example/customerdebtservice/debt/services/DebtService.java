@@ -1,11 +1,27 @@
 package com.example.customerdebtservice.debt.services;
 
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.dto.DebtBatchResultData;
 import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.dto.DebtDeleteResultData;
+import com.example.customerdebtservice.debt.export.DebtExportWriter;
 import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.example.customerdebtservice.shared.exceptions.InvalidAdjustmentException;
+import com.example.customerdebtservice.shared.exceptions.InvalidFilterException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -14,9 +30,55 @@ public interface DebtService {
      * Retrieves debts from database in a pageable form
      *
      * @param pageable contains Pageable data
-     * @return list of specific page number and page size sorted Debts
+     * @return slice of specific page number and page size sorted Debts, which knows only whether a next page exists
      */
-    List<DebtData> getDebts(Pageable pageable);
+    Slice<DebtData> getDebts(Pageable pageable);
+
+    /**
+     * Counts all debts, the count is cached for a short time as it is expensive on a large table
+     *
+     * @return approximate number of debts
+     */
+    long countDebts();
+
+    /**
+     * Retrieves debts from database using keyset pagination, so that no count query is issued
+     * and the cost of a page doesn't depend on its depth
+     *
+     * @param after    cursor of the previous page, empty for the first page
+     * @param pageable contains page size and sort, which can be either by id or by dueDate (ascending)
+     * @return debts of the page and cursor of the next page
+     * @throws InvalidPaginationException when cursor is malformed or sort is not supported
+     */
+    CursorPage<DebtData> getDebtsAfter(String after, Pageable pageable) throws InvalidPaginationException;
+
+    /**
+     * Retrieves debts of one customer using keyset pagination ordered by due date, seeking in the customer
+     * indexes of debt, so that customers with many debts can be paged through without loading all of them
+     *
+     * @param customerId ID of customer
+     * @param currency   returns only debts in this currency code, when not null
+     * @param dueFrom    returns only debts due on this date or later, when not null
+     * @param dueTo      returns only debts due on this date or earlier, when not null
+     * @param after      cursor of the previous page, null or empty for the first page
+     * @param pageable   contains page size and sort, which can be only by dueDate (ascending)
+     * @return debts of the page and cursor of the next page
+     * @throws ResourceNotFoundException  when customer or currency doesn't exist
+     * @throws InvalidFilterException     when dueFrom is after dueTo
+     * @throws InvalidPaginationException when cursor is malformed or sort is not supported
+     */
+    CursorPage<DebtData> getCustomerDebts(Long customerId, String currency, LocalDate dueFrom, LocalDate dueTo,
+                                          String after, Pageable pageable)
+            throws ResourceNotFoundException, InvalidFilterException, InvalidPaginationException;
+
+    /**
+     * Writes all debts to the export writer, streaming them from database in chunks
+     * instead of loading them into memory
+     *
+     * @param writer receives debts one by one
+     * @throws IOException when writing fails
+     */
+    void exportDebts(DebtExportWriter writer) throws IOException;
 
     /**
      * Retrieves debt by ID
@@ -27,6 +89,17 @@ public interface DebtService {
      */
     DebtData getDebtById(Long id) throws ResourceNotFoundException;
 
+    /**
+     * Retrieves debt by ID together with its entity tag, the debt is converted only when the client
+     * doesn't have its current version
+     *
+     * @param id          of debt
+     * @param ifNoneMatch entity tags known to the client, null when there are none
+     * @return entity tag of the debt and debt data, without data when one of the passed tags is current
+     * @throws ResourceNotFoundException when debt doesn't exist
+     */
+    VersionedData<DebtData> getDebtById(Long id, String ifNoneMatch) throws ResourceNotFoundException;
+
     /**
      * Creates a new debt for existing customer
      *
@@ -36,20 +109,72 @@ public interface DebtService {
     DebtData createDebt(DebtForm debtForm);
 
     /**
-     * Updates debt values.
+     * Creates debts read from the batch in chunks, every chunk is inserted in its own transaction
+     * using JDBC batching. Invalid rows are rejected without failing the rest of the batch.
+     * Customers are looked up once per chunk, currencies are served from the in-memory snapshot.
+     *
+     * @param reader supplies debt rows one by one
+     * @return number of created and rejected debts and the result of each row
+     * @throws IOException when batch cannot be read
+     */
+    DebtBatchResultData createDebts(DebtBatchReader reader) throws IOException;
+
+    /**
+     * Updates debt values. Concurrent update of the same debt fails on flush instead of being overwritten
      *
      * @param id       of debt
      * @param debtForm contains debt attributes
+     * @param ifMatch  entity tags of the debt versions the client has modified, null to update any version
+     * @return entity tag and data of the updated debt
+     * @throws ResourceNotFoundException   when debt with passed ID doesn't exist
+     * @throws PreconditionFailedException when the debt has another version than the passed ones
+     */
+    VersionedData<DebtData> updateDebt(Long id, DebtForm debtForm, String ifMatch)
+            throws ResourceNotFoundException, PreconditionFailedException;
+
+    /**
+     * Updates only debt attributes present in a JSON Merge Patch. UPDATE statement contains only changed columns,
+     * currency and customer are resolved only when the patch changes them
+     *
+     * @param id    of debt
+     * @param patch merge patch of debt attributes
      * @return updated debt data
-     * @throws ResourceNotFoundException when debt with passed ID doesn't exist
+     * @throws ResourceNotFoundException when debt, patched currency or patched customer doesn't exist
+     * @throws InvalidPatchException     when patch is not a JSON object or doesn't match debt attributes
      */
-    DebtData updateDebt(Long id, DebtForm debtForm) throws ResourceNotFoundException;
+    DebtData patchDebt(Long id, JsonNode patch) throws ResourceNotFoundException, InvalidPatchException;
+
+    /**
+     * Adds signed delta to the debt amount with a single UPDATE, without reading the debt first,
+     * so that concurrent adjustments never lose updates and need no locking or retries
+     *
+     * @param id    of debt
+     * @param delta change of the amount, negative for payments
+     * @return adjusted debt data
+     * @throws ResourceNotFoundException  when debt with passed ID doesn't exist
+     * @throws InvalidAdjustmentException when the amount would become negative
+     */
+    DebtData adjustDebt(Long id, BigDecimal delta) throws ResourceNotFoundException, InvalidAdjustmentException;
 
     /**
      * Deletes the debt from the database
      *
-     * @param id of debt
-     * @throws ResourceNotFoundException when debt with passed ID doesn't exist
+     * @param id      of debt
+     * @param ifMatch entity tags of the debt versions the client has seen, null to delete any version
+     * @throws ResourceNotFoundException   when debt with passed ID doesn't exist
+     * @throws PreconditionFailedException when the debt has another version than the passed ones
+     * @throws org.springframework.dao.OptimisticLockingFailureException when the debt was modified or deleted
+     *                                                                   concurrently and no versions were passed
+     */
+    void deleteDebt(Long id, String ifMatch) throws ResourceNotFoundException, PreconditionFailedException;
+
+    /**
+     * Deletes all debts matching the filters with a single statement
+     *
+     * @param customerId deletes only debts of this customer, when not null
+     * @param dueBefore  deletes only debts due before this date, when not null
+     * @return number of deleted debts
+     * @throws InvalidFilterException when both filters are null
      */
-    void deleteDebt(Long id) throws ResourceNotFoundException;
+    DebtDeleteResultData deleteDebts(Long customerId, LocalDate dueBefore) throws InvalidFilterException;
 }
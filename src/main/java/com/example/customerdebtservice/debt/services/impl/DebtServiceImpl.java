@@ -2,70 +2,466 @@ package com.example.customerdebtservice.debt.services.impl;
 
 import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummaryId;
 import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
 import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.batch.DebtBatchRow;
 import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.dto.DebtBatchResultData;
+import com.example.customerdebtservice.debt.dto.DebtBatchRowResultData;
+import com.example.customerdebtservice.debt.dto.DebtBatchRowStatus;
 import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.dto.DebtDeleteResultData;
+import com.example.customerdebtservice.debt.export.DebtExportWriter;
 import com.example.customerdebtservice.debt.forms.DebtForm;
 import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.debt.projections.DebtView;
 import com.example.customerdebtservice.debt.repositories.DebtRepository;
 import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.exceptions.InvalidAdjustmentException;
+import com.example.customerdebtservice.shared.exceptions.InvalidFilterException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.etag.ETags;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.SeekCursor;
+import com.example.customerdebtservice.shared.pagination.TotalCountCache;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
-import java.util.List;
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Methods run in read-only transactions unless annotated otherwise, so that all statements of a request share
+ * one connection and reads are neither flushed nor snapshotted for dirty checking
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class DebtServiceImpl implements DebtService {
 
     private final DebtRepository debtRepository;
     private final DebtConverter debtConverter;
+    private final DebtViewConverter debtViewConverter;
     private final CustomerService customerService;
     private final CustomerRepository customerRepository;
+    private final CustomerDebtSummaryService customerDebtSummaryService;
     private final CurrencyService currencyService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final TotalCountCache totalCountCache;
+    private final JsonMergePatch jsonMergePatch;
+
+    private static final String ID = "id";
+    private static final String DUE_DATE = "dueDate";
+    private static final int BATCH_CHUNK_SIZE = 1000;
+    private static final String DEBT_COUNT_KEY = "debts";
+    /**
+     * Bounds of an open due date range, the seek queries take no nulls, so that each condition can use the index
+     */
+    private static final LocalDate MIN_DUE_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DUE_DATE = LocalDate.of(9999, 12, 31);
 
     @Override
-    public List<DebtData> getDebts(Pageable pageable) {
+    public Slice<DebtData> getDebts(Pageable pageable) {
         log.info("Retrieving all debts");
-        return debtRepository.findAll(pageable).toList().stream().map(debtConverter::convert)
-                .collect(Collectors.toList());
+        return debtRepository.findAllBy(pageable).map(debtViewConverter::convert);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long countDebts() {
+        return totalCountCache.get(DEBT_COUNT_KEY, debtRepository::count);
+    }
+
+    @Override
+    public CursorPage<DebtData> getDebtsAfter(String after, Pageable pageable) throws InvalidPaginationException {
+        log.info("Retrieving debts after cursor: " + after);
+        final SeekCursor cursor = StringUtils.hasText(after) ? SeekCursor.decode(after) : null;
+        final Pageable limit = PageRequest.of(0, pageable.getPageSize() + 1);
+        final Sort sort = pageable.getSort();
+
+        if (sort.isUnsorted() || sort.equals(Sort.by(ID))) {
+            if (Objects.nonNull(cursor) && cursor.hasKey()) {
+                throw new InvalidPaginationException("Cursor doesn't match sort by " + ID);
+            }
+            final List<DebtView> debts =
+                    debtRepository.findAllAfterId(Objects.isNull(cursor) ? 0L : cursor.getId(), limit);
+            return CursorPage.of(debts, pageable.getPageSize(), debt -> SeekCursor.ofId(debt.getId()))
+                    .map(debtViewConverter::convert);
+        }
+        if (sort.equals(Sort.by(DUE_DATE)) || sort.equals(Sort.by(DUE_DATE, ID))) {
+            final List<DebtView> debts = Objects.isNull(cursor)
+                    ? debtRepository.findAllOrderByDueDate(limit)
+                    : debtRepository.findAllAfterDueDateAndId(parseDueDate(cursor), cursor.getId(), limit);
+            return CursorPage.of(debts, pageable.getPageSize(),
+                            debt -> SeekCursor.ofKeyAndId(debt.getDueDate().toString(), debt.getId()))
+                    .map(debtViewConverter::convert);
+        }
+        throw new InvalidPaginationException("Cursor pagination supports ascending sort by " + ID + " or " + DUE_DATE);
+    }
+
+    @Override
+    public CursorPage<DebtData> getCustomerDebts(Long customerId, String currency, LocalDate dueFrom, LocalDate dueTo,
+                                                 String after, Pageable pageable)
+            throws ResourceNotFoundException, InvalidFilterException, InvalidPaginationException {
+        log.info("Retrieving debts of customer with ID: " + customerId + " after cursor: " + after);
+        final Sort sort = pageable.getSort();
+        if (!sort.isUnsorted() && !sort.equals(Sort.by(DUE_DATE)) && !sort.equals(Sort.by(DUE_DATE, ID))) {
+            throw new InvalidPaginationException("Debts of customer can be sorted only by ascending " + DUE_DATE);
+        }
+        final LocalDate from = Objects.isNull(dueFrom) ? MIN_DUE_DATE : dueFrom;
+        final LocalDate to = Objects.isNull(dueTo) ? MAX_DUE_DATE : dueTo;
+        if (from.isAfter(to)) {
+            throw new InvalidFilterException("dueFrom must not be after dueTo");
+        }
+        final Long currencyId = Objects.isNull(currency) ? null : currencyService.getCurrencyByCode(currency).getId();
+
+        // First page starts at the range start with ID 0, which every debt is after
+        LocalDate afterDueDate = from;
+        long afterId = 0L;
+        if (StringUtils.hasText(after)) {
+            final SeekCursor cursor = SeekCursor.decode(after);
+            afterDueDate = parseDueDate(cursor);
+            afterId = cursor.getId();
+        }
+        // Lower bound of the seek is the later of both, so that pages deep in the range don't read the ones before
+        final LocalDate seekFrom = afterDueDate.isAfter(from) ? afterDueDate : from;
+        final Pageable limit = PageRequest.of(0, pageable.getPageSize() + 1);
+        final List<DebtView> debts = Objects.isNull(currencyId)
+                ? debtRepository.findAllByCustomerId(customerId, seekFrom, to, afterDueDate, afterId, limit)
+                : debtRepository.findAllByCustomerIdAndCurrencyId(customerId, currencyId, seekFrom, to, afterDueDate,
+                afterId, limit);
+        if (debts.isEmpty() && !customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer not found. ID: " + customerId);
+        }
+        return CursorPage.of(debts, pageable.getPageSize(),
+                        debt -> SeekCursor.ofKeyAndId(debt.getDueDate().toString(), debt.getId()))
+                .map(debtViewConverter::convert);
+    }
+
+    @Override
+    public void exportDebts(DebtExportWriter writer) throws IOException {
+        log.info("Exporting all debts");
+        long count = 0;
+        // Projections aren't kept in the persistence context, so it doesn't grow with the export
+        try (Stream<DebtView> debts = debtRepository.streamAll()) {
+            final Iterator<DebtView> iterator = debts.iterator();
+            while (iterator.hasNext()) {
+                writer.write(debtViewConverter.convert(iterator.next()));
+                if (++count % DebtRepository.EXPORT_FETCH_SIZE == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported debts: " + count);
     }
 
     @Override
     public DebtData getDebtById(Long id) throws ResourceNotFoundException {
         log.info("Retrieving debt by ID: " + id);
-        return debtConverter.convert(findDebtByIdOrThrow(id));
+        return debtViewConverter.convert(findDebtViewByIdOrThrow(id));
     }
 
     @Override
+    public VersionedData<DebtData> getDebtById(Long id, String ifNoneMatch) throws ResourceNotFoundException {
+        log.info("Retrieving debt by ID: " + id);
+        final DebtView debt = findDebtViewByIdOrThrow(id);
+        final String eTag = eTag(debt.getVersion());
+        if (ETags.matchesNoneMatch(ifNoneMatch, eTag)) {
+            return VersionedData.notModified(eTag);
+        }
+        return new VersionedData<>(eTag, debtViewConverter.convert(debt));
+    }
+
+    @Override
+    @Transactional
     public DebtData createDebt(DebtForm debtForm) {
         log.info("Creating new debt for customer ID: " + debtForm.getCustomerId());
         Debt debt = new Debt();
         populateDebtFormToDebt(debtForm, debt);
-        return debtConverter.convert(debtRepository.save(debt));
+        final Debt saved = debtRepository.save(debt);
+        addToTotals(saved);
+        return debtConverter.convert(saved);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DebtBatchResultData createDebts(DebtBatchReader reader) throws IOException {
+        log.info("Creating debts in batch");
+        final DebtBatchResultData result = new DebtBatchResultData();
+        final List<DebtBatchRow> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        DebtBatchRow row;
+        while (Objects.nonNull(row = reader.read())) {
+            chunk.add(row);
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                createDebtChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            createDebtChunk(chunk, result);
+        }
+        log.info("Created debts in batch: " + result.getCreated() + ", rejected: " + result.getRejected());
+        return result;
     }
 
     @Override
-    public DebtData updateDebt(Long id, DebtForm debtForm) throws ResourceNotFoundException {
+    @Transactional
+    public VersionedData<DebtData> updateDebt(Long id, DebtForm debtForm, String ifMatch)
+            throws ResourceNotFoundException, PreconditionFailedException {
         log.info("Updating debt with ID: " + id);
-        Debt debt = findDebtByIdOrThrow(id);
+        Debt debt = findDebtByIdOrThrow(id, ifMatch);
+        final Debt previous = new Debt(null, debt.getAmount(), debt.getDueDate(), debt.getCustomer(),
+                debt.getCurrency(), null);
         populateDebtFormToDebt(debtForm, debt);
-        return debtConverter.convert(debtRepository.save(debt));
+        // Flushed right away, so that the returned entity tag contains the incremented version
+        final Debt saved = debtRepository.saveAndFlush(debt);
+        removeFromTotals(previous);
+        addToTotals(saved);
+        return new VersionedData<>(eTag(saved), debtConverter.convert(saved));
     }
 
     @Override
-    public void deleteDebt(Long id) throws ResourceNotFoundException {
+    @Transactional
+    public DebtData patchDebt(Long id, JsonNode patch) throws ResourceNotFoundException, InvalidPatchException {
+        log.info("Patching debt with ID: " + id);
+        final Debt debt = findDebtByIdOrThrow(id);
+        // Customer stays an uninitialized proxy, reading its ID doesn't load it
+        final Long customerId = Objects.isNull(debt.getCustomer()) ? null : debt.getCustomer().getId();
+        final DebtForm debtForm = jsonMergePatch.apply(new DebtForm(debt.getAmount(), debt.getCurrency().getCode(),
+                debt.getDueDate(), customerId), patch);
+        final Debt previous = new Debt(null, debt.getAmount(), debt.getDueDate(), debt.getCustomer(),
+                debt.getCurrency(), null);
+        boolean changed = false;
+        if (debtForm.getAmount().compareTo(debt.getAmount()) != 0) {
+            debt.setAmount(debtForm.getAmount());
+            changed = true;
+        }
+        if (!debtForm.getDueDate().equals(debt.getDueDate())) {
+            debt.setDueDate(debtForm.getDueDate());
+            changed = true;
+        }
+        if (!debtForm.getCurrency().equals(debt.getCurrency().getCode())) {
+            debt.setCurrency(currencyService.getCurrencyByCode(debtForm.getCurrency()));
+            changed = true;
+        }
+        if (!Objects.equals(debtForm.getCustomerId(), customerId)) {
+            debt.setCustomer(customerService.getCustomerReferenceOrThrow(debtForm.getCustomerId()));
+            changed = true;
+        }
+        // Managed debt is flushed by dirty checking, an unchanged debt isn't written at all
+        if (changed) {
+            removeFromTotals(previous);
+            addToTotals(debt);
+        }
+        return debtConverter.convert(debt);
+    }
+
+    @Override
+    @Transactional
+    public DebtData adjustDebt(Long id, BigDecimal delta) throws ResourceNotFoundException,
+            InvalidAdjustmentException {
+        log.info("Adjusting amount of debt with ID: " + id + " by " + delta);
+        if (debtRepository.adjustAmount(id, delta) == 0) {
+            findDebtByIdOrThrow(id);
+            throw new InvalidAdjustmentException("Debt amount cannot become negative. ID: " + id);
+        }
+        // Read after the update, while the row is locked by this transaction, so it sees only this adjustment
+        final Debt debt = findDebtByIdOrThrow(id);
+        if (Objects.nonNull(debt.getCustomer())) {
+            customerDebtSummaryService.adjustAmount(debt.getCustomer().getId(), debt.getCurrency().getId(), delta);
+        }
+        return debtConverter.convert(debt);
+    }
+
+    @Override
+    @Transactional
+    public void deleteDebt(Long id, String ifMatch) throws ResourceNotFoundException, PreconditionFailedException {
         log.info("Deleting debt with ID: " + id);
-        Debt debt = findDebtByIdOrThrow(id);
-        Customer customer = debt.getCustomer();
-        customer.getDebts().remove(debt);
-        customerRepository.save(customer);
+        // Read in any case, as the totals are reduced by the amount, currency and due date of the deleted debt
+        final Debt debt = findDebtByIdOrThrow(id, ifMatch);
+        // Version condition catches modifications committed after the debt was read, which the totals would miss
+        if (debtRepository.deleteDebtByIdAndVersion(id, debt.getVersion()) == 0) {
+            if (StringUtils.hasText(ifMatch)) {
+                throw new PreconditionFailedException("Debt was modified. ID: " + id);
+            }
+            throw new ObjectOptimisticLockingFailureException(Debt.class, id);
+        }
+        removeFromTotals(debt);
+    }
+
+    @Override
+    @Transactional
+    public DebtDeleteResultData deleteDebts(Long customerId, LocalDate dueBefore) throws InvalidFilterException {
+        if (Objects.isNull(customerId) && Objects.isNull(dueBefore)) {
+            throw new InvalidFilterException("Debts can be deleted only by customerId and/or dueBefore");
+        }
+        log.info("Deleting debts of customer ID: " + customerId + ", due before: " + dueBefore);
+        // Each combination of filters has its own statement, so that it can seek in the matching index.
+        // Deleted debts are aggregated beforehand and subtracted, so only summaries containing them are written
+        final int deleted;
+        if (Objects.isNull(dueBefore)) {
+            deleted = debtRepository.deleteDebtsByCustomerId(customerId);
+            customerDebtSummaryService.deleteCustomerTotals(customerId);
+        } else if (Objects.isNull(customerId)) {
+            final List<DebtTotalView> totals = debtRepository.sumAllByDueDateBefore(dueBefore);
+            deleted = debtRepository.deleteAllByDueDateBefore(dueBefore);
+            customerDebtSummaryService.removeDebts(totals);
+        } else {
+            final List<DebtTotalView> totals = debtRepository.sumAllByCustomerIdAndDueDateBefore(customerId, dueBefore);
+            deleted = debtRepository.deleteAllByCustomerIdAndDueDateBefore(customerId, dueBefore);
+            customerDebtSummaryService.removeDebts(totals);
+        }
+        log.info("Deleted debts: " + deleted);
+        return new DebtDeleteResultData(deleted);
+    }
+
+    private void createDebtChunk(List<DebtBatchRow> rows, DebtBatchResultData result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            final Set<Long> customerIds = findExistingCustomerIds(rows);
+            final List<Debt> debts = new ArrayList<>(rows.size());
+            final List<DebtBatchRowResultData> createdRows = new ArrayList<>(rows.size());
+            for (DebtBatchRow row : rows) {
+                final List<String> errors = validateBatchRow(row, customerIds);
+                if (!errors.isEmpty()) {
+                    result.getRows().add(new DebtBatchRowResultData(row.getIndex(), DebtBatchRowStatus.REJECTED,
+                            null, errors));
+                    result.setRejected(result.getRejected() + 1);
+                    continue;
+                }
+                final DebtForm debtForm = row.getDebtForm();
+                final Debt debt = new Debt();
+                debt.setAmount(debtForm.getAmount());
+                debt.setDueDate(debtForm.getDueDate());
+                debt.setCurrency(currencyService.getCurrencyByCode(debtForm.getCurrency()));
+                debt.setCustomer(entityManager.getReference(Customer.class, debtForm.getCustomerId()));
+                debts.add(debt);
+
+                final DebtBatchRowResultData createdRow = new DebtBatchRowResultData(row.getIndex(),
+                        DebtBatchRowStatus.CREATED, null, List.of());
+                createdRows.add(createdRow);
+                result.getRows().add(createdRow);
+            }
+            debtRepository.saveAll(debts);
+            addToTotals(debts);
+            entityManager.flush();
+            // Detach inserted chunk, so that persistence context doesn't grow with the batch
+            entityManager.clear();
+            for (int i = 0; i < debts.size(); i++) {
+                createdRows.get(i).setId(debts.get(i).getId());
+            }
+            result.setCreated(result.getCreated() + debts.size());
+        });
+    }
+
+    private void addToTotals(Debt debt) {
+        if (Objects.nonNull(debt.getCustomer())) {
+            customerDebtSummaryService.addDebts(debt.getCustomer().getId(), debt.getCurrency().getId(),
+                    debt.getAmount(), 1, debt.getDueDate());
+        }
+    }
+
+    /**
+     * Adds debts to the totals with one statement per customer and currency instead of one per debt
+     */
+    private void addToTotals(List<Debt> debts) {
+        final Map<CustomerDebtSummaryId, List<Debt>> debtsBySummary = debts.stream()
+                .filter(debt -> Objects.nonNull(debt.getCustomer()))
+                .collect(Collectors.groupingBy(debt ->
+                        new CustomerDebtSummaryId(debt.getCustomer().getId(), debt.getCurrency().getId())));
+        debtsBySummary.forEach((summaryId, summaryDebts) -> customerDebtSummaryService.addDebts(
+                summaryId.getCustomerId(), summaryId.getCurrencyId(),
+                summaryDebts.stream().map(Debt::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add),
+                summaryDebts.size(),
+                summaryDebts.stream().map(Debt::getDueDate).min(LocalDate::compareTo).orElseThrow()));
+    }
+
+    private void removeFromTotals(Debt debt) {
+        if (Objects.nonNull(debt.getCustomer())) {
+            customerDebtSummaryService.removeDebt(debt.getCustomer().getId(), debt.getCurrency().getId(),
+                    debt.getAmount(), debt.getDueDate());
+        }
+    }
+
+    private Set<Long> findExistingCustomerIds(List<DebtBatchRow> rows) {
+        final Set<Long> customerIds = rows.stream()
+                .filter(DebtBatchRow::isBound)
+                .map(row -> row.getDebtForm().getCustomerId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return customerIds.isEmpty() ? Set.of() : new HashSet<>(customerRepository.findExistingIds(customerIds));
+    }
+
+    private List<String> validateBatchRow(DebtBatchRow row, Set<Long> customerIds) {
+        if (!row.isBound()) {
+            return List.of(row.getBindingError());
+        }
+        final DebtForm debtForm = row.getDebtForm();
+        final List<String> errors = validator.validate(debtForm).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!errors.isEmpty()) {
+            return errors;
+        }
+        if (!customerIds.contains(debtForm.getCustomerId())) {
+            errors.add("Customer not found. ID: " + debtForm.getCustomerId());
+        }
+        if (isUnknownCurrency(debtForm.getCurrency())) {
+            errors.add("Cannot find currency for code: " + debtForm.getCurrency());
+        }
+        return errors;
+    }
+
+    private boolean isUnknownCurrency(String code) {
+        try {
+            currencyService.getCurrencyByCode(code);
+            return false;
+        } catch (ResourceNotFoundException ex) {
+            return true;
+        }
+    }
+
+    private LocalDate parseDueDate(SeekCursor cursor) {
+        if (!cursor.hasKey()) {
+            throw new InvalidPaginationException("Cursor doesn't match sort by " + DUE_DATE);
+        }
+        try {
+            return LocalDate.parse(cursor.getKey());
+        } catch (DateTimeParseException ex) {
+            throw new InvalidPaginationException("Cursor doesn't contain valid due date: " + cursor.getKey());
+        }
     }
 
     private Debt findDebtByIdOrThrow(Long id) {
@@ -73,10 +469,31 @@ public class DebtServiceImpl implements DebtService {
                 .orElseThrow(() -> new ResourceNotFoundException("Debt not found. ID: " + id));
     }
 
+    private Debt findDebtByIdOrThrow(Long id, String ifMatch) {
+        final Debt debt = findDebtByIdOrThrow(id);
+        if (!ETags.matchesIfMatch(ifMatch, eTag(debt))) {
+            throw new PreconditionFailedException("Debt was modified. ID: " + id);
+        }
+        return debt;
+    }
+
+    private DebtView findDebtViewByIdOrThrow(Long id) {
+        return debtRepository.findViewById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Debt not found. ID: " + id));
+    }
+
+    private static String eTag(Debt debt) {
+        return eTag(debt.getVersion());
+    }
+
+    private static String eTag(Long version) {
+        return ETags.of(String.valueOf(version));
+    }
+
     private void populateDebtFormToDebt(DebtForm source, Debt target) {
         target.setAmount(source.getAmount());
         target.setCurrency(currencyService.getCurrencyByCode(source.getCurrency()));
         target.setDueDate(source.getDueDate());
-        target.setCustomer(customerService.findCustomerByIdOrThrow(source.getCustomerId()));
+        target.setCustomer(customerService.getCustomerReferenceOrThrow(source.getCustomerId()));
     }
 }
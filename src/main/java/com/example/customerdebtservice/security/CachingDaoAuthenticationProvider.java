@@ -0,0 +1,73 @@
+package com.example.customerdebtservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Authentication provider, which skips the password encoder for credentials verified recently,
+ * see {@link CredentialVerificationCache}. Publishes cache hits and misses, hit ratio, time of the performed
+ * verifications and an estimate of the verification time saved by the cache
+ */
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+    private final CredentialVerificationCache cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer verifications;
+    private final DoubleAdder savedSeconds = new DoubleAdder();
+
+    public CachingDaoAuthenticationProvider(CredentialVerificationCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.hits = Counter.builder("auth.verification.cache").tag("result", "hit")
+                .description("Password verifications served from cache").register(meterRegistry);
+        this.misses = Counter.builder("auth.verification.cache").tag("result", "miss")
+                .description("Password verifications performed by the password encoder").register(meterRegistry);
+        this.verifications = Timer.builder("auth.verification.encoder")
+                .description("Time of password verifications performed by the password encoder")
+                .register(meterRegistry);
+        Gauge.builder("auth.verification.cache.hit.ratio", this, CachingDaoAuthenticationProvider::hitRatio)
+                .description("Share of password verifications served from cache").register(meterRegistry);
+        Gauge.builder("auth.verification.cache.size", cache, CredentialVerificationCache::size)
+                .description("Number of remembered verifications").register(meterRegistry);
+        FunctionCounter.builder("auth.verification.cache.saved", savedSeconds, DoubleAdder::sum)
+                .baseUnit("seconds")
+                .description("Password encoder time saved by cache hits, estimated by mean verification time")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (Objects.isNull(authentication.getCredentials()) || Objects.isNull(userDetails.getPassword())) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+        final String username = userDetails.getUsername();
+        final String password = authentication.getCredentials().toString();
+        if (cache.isVerified(username, password, userDetails.getPassword())) {
+            hits.increment();
+            savedSeconds.add(verifications.mean(TimeUnit.SECONDS));
+            return;
+        }
+        misses.increment();
+        // Failed verification throws, so only successful ones are remembered
+        verifications.record(() -> super.additionalAuthenticationChecks(userDetails, authentication));
+        cache.markVerified(username, password, userDetails.getPassword());
+    }
+
+    private double hitRatio() {
+        final double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.customerdebtservice.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers successful password verifications for a short time, so that repeated requests of the same client
+ * don't pay for a BCrypt verification each. Entries are keyed by an HMAC of username, presented password and
+ * stored password hash: the cache never holds a password, and changing the stored hash makes old entries
+ * unreachable, so a changed password is verified again right away. Least recently used entries are evicted
+ * when the cache is full
+ */
+public class CredentialVerificationCache {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, Instant> verified;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * @param ttl     how long a verification is trusted
+     * @param maxSize maximum number of remembered verifications
+     */
+    public CredentialVerificationCache(Duration ttl, int maxSize) {
+        this(ttl, maxSize, Clock.systemUTC());
+    }
+
+    CredentialVerificationCache(Duration ttl, int maxSize, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+                return size() > maxSize;
+            }
+        };
+        // Secret lives only in memory of this process, as does the cache
+        final byte[] secret = new byte[KEY_BYTES];
+        new SecureRandom().nextBytes(secret);
+        final SecretKeySpec key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + HMAC_ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * @return true when the same password was verified against the same stored hash within TTL
+     */
+    public boolean isVerified(String username, String password, String storedHash) {
+        final String key = key(username, password, storedHash);
+        final Instant now = clock.instant();
+        synchronized (verified) {
+            final Instant expiresAt = verified.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (!expiresAt.isAfter(now)) {
+                verified.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public void markVerified(String username, String password, String storedHash) {
+        final String key = key(username, password, storedHash);
+        final Instant expiresAt = clock.instant().plus(ttl);
+        synchronized (verified) {
+            verified.put(key, expiresAt);
+        }
+    }
+
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    private String key(String username, String password, String storedHash) {
+        final Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        hmac.update(password.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(hmac.doFinal(storedHash.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.customerdebtservice.security;
+
+import com.example.customerdebtservice.shared.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes customer passwords on a pool sized to the number of cores with a bounded queue, so that a burst
+ * of customer writes can't occupy more cores with BCrypt than there are, and is rejected quickly
+ * with {@link ServiceUnavailableException} once the queue is full, instead of piling up on request threads.
+ * The request thread still waits for its password to be hashed, so callers hash outside of transactions
+ * to hold no database connection meanwhile.
+ * Hashing is skipped when the password matches the stored hash, the match itself is skipped when the same password
+ * was hashed to the stored hash recently on this node, see {@link CredentialVerificationCache}
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+    private static final String METRIC_PREFIX = "password.hashing";
+
+    private final PasswordEncoder passwordEncoder;
+    private final CredentialVerificationCache hashed;
+    private final ThreadPoolExecutor executor;
+    private final Counter skipped;
+    private final Counter rejected;
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${security.password-hashing.queue-capacity}") int queueCapacity,
+                          @Value("${security.password-hashing.recently-hashed.ttl}") Duration ttl,
+                          @Value("${security.password-hashing.recently-hashed.max-size}") int maxSize) {
+        this(passwordEncoder, meterRegistry, Runtime.getRuntime().availableProcessors(), queueCapacity,
+                new CredentialVerificationCache(ttl, maxSize));
+    }
+
+    PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry, int threads, int queueCapacity,
+                   CredentialVerificationCache hashed) {
+        this.passwordEncoder = passwordEncoder;
+        this.hashed = hashed;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, METRIC_PREFIX, Tags.empty()).bindTo(meterRegistry);
+        this.skipped = Counter.builder(METRIC_PREFIX + ".skipped")
+                .description("Password updates which kept the stored hash").register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Password hashings rejected because the queue was full").register(meterRegistry);
+    }
+
+    /**
+     * Hashes password of a customer on the hashing pool, the calling thread waits for the result
+     *
+     * @param username   email of the customer
+     * @param password   raw password
+     * @param storedHash current hash of the password, null for a new customer
+     * @return stored hash when the password is unchanged, otherwise a new hash
+     * @throws ServiceUnavailableException when too many passwords are being hashed
+     */
+    public String hash(String username, String password, String storedHash) throws ServiceUnavailableException {
+        if (Objects.nonNull(storedHash) && hashed.isVerified(username, password, storedHash)) {
+            skipped.increment();
+            return storedHash;
+        }
+        final String hash = await(submit(password, storedHash));
+        if (Objects.equals(hash, storedHash)) {
+            skipped.increment();
+        }
+        hashed.markVerified(username, password, hash);
+        return hash;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Future<String> submit(String password, String storedHash) {
+        try {
+            // Matching costs as much as hashing, but keeps the stored hash of an unchanged password on every node
+            return executor.submit(() -> Objects.nonNull(storedHash) && passwordEncoder.matches(password, storedHash)
+                    ? storedHash : passwordEncoder.encode(password));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            log.warn("Password hashing rejected, " + executor.getQueue().size() + " passwords are waiting");
+            throw new ServiceUnavailableException("Too many password changes in progress, retry later");
+        }
+    }
+
+    private String await(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (InterruptedException ex) {
+            hash.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing was interrupted");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+}
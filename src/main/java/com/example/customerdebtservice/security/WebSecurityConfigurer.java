@@ -1,13 +1,28 @@
 package com.example.customerdebtservice.security;
 
+import com.example.customerdebtservice.security.controllers.AuthController;
+import com.example.customerdebtservice.security.token.BearerTokenAuthenticationFilter;
+import com.example.customerdebtservice.security.token.BearerTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.time.Duration;
 
 /**
  * Probably, most unsecure security configuration!
@@ -17,23 +32,68 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @EnableWebSecurity
 public class WebSecurityConfigurer extends WebSecurityConfigurerAdapter {
 
+    @Value("${security.credential-cache.ttl}")
+    private Duration credentialCacheTtl;
+
+    @Value("${security.credential-cache.max-size}")
+    private int credentialCacheMaxSize;
+
+    @Value("${security.token.secret}")
+    private String tokenSecret;
+
+    @Value("${security.token.ttl}")
+    private Duration tokenTtl;
+
+    /**
+     * Missing in web slice tests, which don't configure metrics
+     */
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.inMemoryAuthentication()
-                .withUser("user")
+        auth.authenticationProvider(authenticationProvider());
+    }
+
+    @Bean
+    public UserDetailsService userDetailsService() {
+        return new InMemoryUserDetailsManager(User.withUsername("user")
                 .password(passwordEncoder().encode("1234"))
-                .roles("USER");
+                .roles("USER")
+                .build());
+    }
+
+    /**
+     * Verifies passwords with BCrypt only when they were not verified recently, see {@link CredentialVerificationCache}
+     */
+    @Bean
+    public CachingDaoAuthenticationProvider authenticationProvider() {
+        final CachingDaoAuthenticationProvider provider = new CachingDaoAuthenticationProvider(
+                new CredentialVerificationCache(credentialCacheTtl, credentialCacheMaxSize),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        provider.setUserDetailsService(userDetailsService());
+        provider.setPasswordEncoder(passwordEncoder());
+        return provider;
     }
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.csrf().disable();
+        // Tokens are issued only for Basic credentials, otherwise a token could be renewed forever and would outlive
+        // a changed or deleted user
+        http.addFilterBefore(new BearerTokenAuthenticationFilter(bearerTokenService(),
+                new AntPathRequestMatcher(AuthController.TOKEN_PATH)), BasicAuthenticationFilter.class);
         http.authorizeRequests().antMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-resources/**").permitAll();
         http.authorizeRequests()
                 .anyRequest().authenticated()
                 .and().httpBasic();
     }
 
+    @Bean
+    public BearerTokenService bearerTokenService() {
+        return new BearerTokenService(tokenSecret, tokenTtl);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,33 @@
+package com.example.customerdebtservice.security.controllers;
+
+import com.example.customerdebtservice.security.dto.TokenData;
+import com.example.customerdebtservice.security.token.BearerTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+@Slf4j
+public class AuthController {
+
+    private final BearerTokenService bearerTokenService;
+    private static final String URL_PATH = "/auth";
+    public static final String TOKEN_PATH = URL_PATH + "/token";
+
+    /**
+     * Exchanges Basic credentials for a short-lived bearer token, which is then sent as
+     * "Authorization: Bearer {token}" and verified without the password encoder. Requests with a bearer token
+     * are not authenticated here, a token can't be renewed without the password
+     */
+    @PostMapping("/token")
+    public ResponseEntity<TokenData> createToken(Authentication authentication) {
+        log.info("POST request: " + TOKEN_PATH);
+        return ResponseEntity.ok().body(bearerTokenService.issue(authentication));
+    }
+}
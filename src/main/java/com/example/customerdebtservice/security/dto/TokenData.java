@@ -0,0 +1,16 @@
+package com.example.customerdebtservice.security.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString(exclude = "token")
+public class TokenData {
+    private String token;
+    private String tokenType;
+    private Instant expiresAt;
+}
@@ -0,0 +1,129 @@
+package com.example.customerdebtservice.security.token;
+
+import com.example.customerdebtservice.security.dto.TokenData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies short-lived bearer tokens signed with HMAC-SHA256. A token carries username, authorities
+ * and expiry, so verifying it needs neither the user store nor the password encoder, only the shared secret:
+ * every node configured with the same secret accepts tokens issued by any other node. Tokens can't be revoked
+ * before they expire
+ */
+@Slf4j
+public class BearerTokenService {
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int SECRET_BYTES = 32;
+    private static final char SEPARATOR = '.';
+    private static final String FIELD_SEPARATOR = "\n";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * @param secret Base64 encoded signing secret shared by all nodes, a random secret is generated when empty
+     * @param ttl    lifetime of issued tokens
+     */
+    public BearerTokenService(String secret, Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    BearerTokenService(String secret, Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        final SecretKeySpec key = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + HMAC_ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Issues token for an authenticated user
+     *
+     * @param authentication contains username and authorities
+     * @return token with its type and expiry
+     */
+    public TokenData issue(Authentication authentication) {
+        final Instant expiresAt = clock.instant().plus(ttl);
+        final String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        final byte[] payload = String.join(FIELD_SEPARATOR, authentication.getName(),
+                String.valueOf(expiresAt.getEpochSecond()), authorities).getBytes(StandardCharsets.UTF_8);
+        final String token = ENCODER.encodeToString(payload) + SEPARATOR + ENCODER.encodeToString(sign(payload));
+        return new TokenData(token, TOKEN_TYPE, expiresAt);
+    }
+
+    /**
+     * Verifies signature and expiry of a token
+     *
+     * @param token issued by {@link #issue(Authentication)}
+     * @return authentication of the token owner, empty when token is malformed, tampered with or expired
+     */
+    public Optional<Authentication> verify(String token) {
+        final int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == token.length() - 1) {
+            return Optional.empty();
+        }
+        final byte[] payload;
+        final byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return Optional.empty();
+        }
+
+        final String[] fields = new String(payload, StandardCharsets.UTF_8).split(FIELD_SEPARATOR, -1);
+        if (fields.length != 3 || !clock.instant().isBefore(Instant.ofEpochSecond(Long.parseLong(fields[1])))) {
+            return Optional.empty();
+        }
+        return Optional.of(new UsernamePasswordAuthenticationToken(fields[0], null,
+                AuthorityUtils.commaSeparatedStringToAuthorityList(fields[2])));
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (StringUtils.hasText(secret)) {
+            return Base64.getDecoder().decode(secret);
+        }
+        log.warn("Token secret is not configured, tokens will be accepted only by this node until it restarts");
+        final byte[] random = new byte[SECRET_BYTES];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
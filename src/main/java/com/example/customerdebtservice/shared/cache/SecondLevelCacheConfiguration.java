@@ -0,0 +1,81 @@
+package com.example.customerdebtservice.shared.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Regions of the Hibernate second-level cache, kept in process by Caffeine. Every region is created here with
+ * its bounds, Hibernate is configured to fail on a region missing from this list instead of creating an unbounded one
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+    public static final String CURRENCY_REGION = "currency";
+    public static final String CURRENCY_BY_CODE_REGION = "currency-by-code";
+    public static final String CUSTOMER_REGION = "customer";
+
+    @Value("${second-level-cache.currency.max-size}")
+    private long currencyMaxSize;
+
+    @Value("${second-level-cache.customer.max-size}")
+    private long customerMaxSize;
+
+    @Value("${second-level-cache.customer.ttl}")
+    private Duration customerTtl;
+
+    /**
+     * Each application context gets its own cache manager, so that contexts running in the same JVM
+     * against different databases never share cached rows
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        final CachingProvider cachingProvider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        final CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(CURRENCY_REGION, configuration(currencyMaxSize, null));
+        cacheManager.createCache(CURRENCY_BY_CODE_REGION, configuration(currencyMaxSize, null));
+        cacheManager.createCache(CUSTOMER_REGION, configuration(customerMaxSize, customerTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                configuration(currencyMaxSize, null));
+        // Must outlive every cached query result, otherwise results could be returned after their tables changed
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                configuration(null, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    /**
+     * @param maxSize maximum number of entries, unbounded when null
+     * @param ttl     time after which an entry is reloaded, bounds staleness after changes made outside
+     *                of the application, never expires when null
+     */
+    private static CaffeineConfiguration<Object, Object> configuration(Long maxSize, Duration ttl) {
+        final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate stores its own disassembled copies, copying them once more on each access isn't needed
+        configuration.setStoreByValue(false);
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        return configuration;
+    }
+}
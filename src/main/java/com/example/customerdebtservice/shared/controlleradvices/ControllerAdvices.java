@@ -1,8 +1,18 @@
 package com.example.customerdebtservice.shared.controlleradvices;
 
+import com.example.customerdebtservice.shared.exceptions.InvalidAdjustmentException;
+import com.example.customerdebtservice.shared.exceptions.InvalidFilterException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceExistsException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.exceptions.ServiceUnavailableException;
+import com.example.customerdebtservice.shared.exceptions.UnsupportedPreconditionException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,6 +20,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolationException;
 
 @ControllerAdvice
@@ -31,6 +42,72 @@ public class ControllerAdvices {
         return ex.getMessage();
     }
 
+    @ResponseBody
+    @ExceptionHandler(InvalidAdjustmentException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String invalidAdjustmentExceptionHandler(InvalidAdjustmentException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidPaginationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidPaginationExceptionHandler(InvalidPaginationException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidFilterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidFilterExceptionHandler(InvalidFilterException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidPatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidPatchExceptionHandler(InvalidPatchException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public String preconditionFailedExceptionHandler(PreconditionFailedException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(UnsupportedPreconditionException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String unsupportedPreconditionExceptionHandler(UnsupportedPreconditionException ex) {
+        log.error(ex.getMessage());
+        return ex.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException ex) {
+        String errorMessage = "Error occurred. Resource was modified concurrently, retry the request";
+        log.error("OptimisticLockingFailureException: " + ex.getMessage());
+        return errorMessage;
+    }
+
+    @ResponseBody
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String serviceUnavailableExceptionHandler(ServiceUnavailableException ex, HttpServletResponse response) {
+        log.warn(ex.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return ex.getMessage();
+    }
+
     @ResponseBody
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -50,4 +127,13 @@ public class ControllerAdvices {
         log.error("HttpMessageNotReadableException: " + errorMessage);
         return errorMessage;
     }
+
+    @ResponseBody
+    @ExceptionHandler(JsonProcessingException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleJsonProcessingException(JsonProcessingException ex) {
+        String errorMessage = "Error occurred. Cannot deserialize HTTP message";
+        log.error("JsonProcessingException: " + ex.getOriginalMessage());
+        return errorMessage;
+    }
 }
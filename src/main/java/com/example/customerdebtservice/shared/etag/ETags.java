@@ -0,0 +1,52 @@
+package com.example.customerdebtservice.shared.etag;
+
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Builds entity tags from entity versions and evaluates If-Match and If-None-Match headers (RFC 7232)
+ */
+public final class ETags {
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    /**
+     * @param version opaque version of the representation, e.g. entity version
+     * @return strong entity tag
+     */
+    public static String of(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so that weak tags added by proxies still match
+     *
+     * @return true when the header lists the current tag or is "*"
+     */
+    public static boolean matchesNoneMatch(String ifNoneMatch, String eTag) {
+        return matches(ifNoneMatch, eTag, true);
+    }
+
+    /**
+     * If-Match uses strong comparison, weak tags never match
+     *
+     * @return true when the header is absent, lists the current tag or is "*"
+     */
+    public static boolean matchesIfMatch(String ifMatch, String eTag) {
+        return !StringUtils.hasText(ifMatch) || matches(ifMatch, eTag, false);
+    }
+
+    private static boolean matches(String header, String eTag, boolean weak) {
+        if (!StringUtils.hasText(header)) {
+            return false;
+        }
+        return Arrays.stream(header.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> ANY.equals(tag) || (weak && tag.startsWith(WEAK_PREFIX)
+                        ? tag.substring(WEAK_PREFIX.length()) : tag).equals(eTag));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.customerdebtservice.shared.etag;
+
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * Representation of a resource together with its entity tag,
+ * content is null when the client already has the current representation
+ */
+@Value
+public class VersionedData<T> {
+    String eTag;
+    T content;
+
+    public static <T> VersionedData<T> notModified(String eTag) {
+        return new VersionedData<>(eTag, null);
+    }
+
+    public boolean isModified() {
+        return Objects.nonNull(content);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.customerdebtservice.shared.exceptions;
+
+public class InvalidAdjustmentException extends RuntimeException {
+    public InvalidAdjustmentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.customerdebtservice.shared.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.customerdebtservice.shared.exceptions;
+
+public class UnsupportedPreconditionException extends RuntimeException {
+    public UnsupportedPreconditionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.customerdebtservice.shared.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Page of a keyset (seek) pagination, which carries the cursor of the next page instead of page number and totals
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> content;
+    /**
+     * Cursor of the next page or null when this page is the last one
+     */
+    private String nextCursor;
+
+    /**
+     * Creates page from rows fetched with a limit of page size + 1, where the extra row only signals the next page
+     *
+     * @param rows     fetched rows
+     * @param size     requested page size
+     * @param cursorOf creates cursor pointing at the passed row
+     * @return page containing at most size rows
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, SeekCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        final List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)).encode());
+    }
+
+    public boolean hasNext() {
+        return Objects.nonNull(nextCursor);
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        return new CursorPage<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.customerdebtservice.shared.pagination;
+
+/**
+ * Headers of offset pagination, the body of list endpoints contains only the rows
+ */
+public final class PaginationHeaders {
+    public static final String HAS_NEXT = "X-Has-Next";
+    public static final String TOTAL_COUNT = "X-Total-Count";
+
+    private PaginationHeaders() {
+    }
+}
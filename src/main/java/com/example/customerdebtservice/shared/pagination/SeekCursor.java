@@ -0,0 +1,64 @@
+package com.example.customerdebtservice.shared.pagination;
+
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of the last row of a keyset page: the value of the sort key (if any) and the row ID.
+ * Clients receive it as an opaque URL-safe string and pass it back to fetch the next page.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode
+@ToString
+public class SeekCursor {
+    private static final String SEPARATOR = "|";
+
+    private final String key;
+    private final Long id;
+
+    public static SeekCursor ofId(Long id) {
+        return new SeekCursor(null, id);
+    }
+
+    public static SeekCursor ofKeyAndId(String key, Long id) {
+        return new SeekCursor(key, id);
+    }
+
+    public boolean hasKey() {
+        return Objects.nonNull(key);
+    }
+
+    public String encode() {
+        final String value = hasKey() ? key + SEPARATOR + id : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes cursor previously created by {@link #encode()}
+     *
+     * @param cursor encoded cursor
+     * @return decoded cursor
+     * @throws InvalidPaginationException when cursor is malformed
+     */
+    public static SeekCursor decode(String cursor) throws InvalidPaginationException {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int separatorIndex = value.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                return ofId(Long.valueOf(value));
+            }
+            return ofKeyAndId(value.substring(0, separatorIndex), Long.valueOf(value.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPaginationException("Cannot decode cursor: " + cursor);
+        }
+    }
+}
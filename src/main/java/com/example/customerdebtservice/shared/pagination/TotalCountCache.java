@@ -0,0 +1,48 @@
+package com.example.customerdebtservice.shared.pagination;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches total row counts for the opt-in totals of list endpoints, so that paging through a large table
+ * doesn't run a count query for every page. Counts are approximate: they can be stale for up to the TTL.
+ */
+@Component
+public class TotalCountCache {
+    private final Duration ttl;
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public TotalCountCache(@Value("${pagination.total-count-ttl}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns cached count, concurrent callers of an expired key wait for a single count instead of all counting
+     *
+     * @param key     identifies the counted rows
+     * @param counter counts the rows when the cached count is missing or expired
+     * @return total count, at most TTL old
+     */
+    public long get(String key, LongSupplier counter) {
+        final Instant now = Instant.now();
+        return counts.compute(key, (k, cached) -> cached == null || cached.expiresAt.isBefore(now)
+                ? new CachedCount(counter.getAsLong(), now.plus(ttl))
+                : cached).count;
+    }
+
+    private static final class CachedCount {
+        private final long count;
+        private final Instant expiresAt;
+
+        private CachedCount(long count, Instant expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
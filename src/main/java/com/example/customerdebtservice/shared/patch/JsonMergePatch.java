@@ -0,0 +1,65 @@
+package com.example.customerdebtservice.shared.patch;
+
+import com.example.customerdebtservice.shared.exceptions.InvalidPatchException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import javax.validation.metadata.BeanDescriptor;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Applies JSON Merge Patch (RFC 7386) documents to flat forms: members present in the patch replace
+ * the values of the form, absent members keep them and null members clear them,
+ * which fails validation for required attributes. Only the patched attributes are validated, stored values
+ * the form is filled with may be missing (e.g. debt without customer) and are not the client's concern
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonMergePatch {
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * @param target form filled with the current values, it is modified in place
+     * @param patch  merge patch document
+     * @return patched and validated form
+     * @throws InvalidPatchException        when patch is not a JSON object or its values don't fit the form
+     * @throws ConstraintViolationException when patched attributes of the form are not valid
+     */
+    public <T> T apply(T target, JsonNode patch) throws InvalidPatchException, ConstraintViolationException {
+        if (Objects.isNull(patch) || !patch.isObject()) {
+            throw new InvalidPatchException("Merge patch should be a JSON object");
+        }
+        final T patched;
+        try {
+            patched = objectMapper.readerForUpdating(target).readValue(patch);
+        } catch (JsonProcessingException ex) {
+            throw new InvalidPatchException("Merge patch doesn't match the resource: " + ex.getOriginalMessage());
+        } catch (IOException ex) {
+            throw new InvalidPatchException("Merge patch cannot be read: " + ex.getMessage());
+        }
+        final BeanDescriptor constraints = validator.getConstraintsForClass(patched.getClass());
+        final Set<ConstraintViolation<T>> violations = new HashSet<>();
+        patch.fieldNames().forEachRemaining(name -> {
+            // Members the form doesn't declare are ignored by the reader, they have no constraints either
+            if (Objects.nonNull(constraints.getConstraintsForProperty(name))) {
+                violations.addAll(validator.validateProperty(patched, name));
+            }
+        });
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return patched;
+    }
+}
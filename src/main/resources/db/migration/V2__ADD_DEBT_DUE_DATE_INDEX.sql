@@ -0,0 +1 @@
+CREATE INDEX idx_debt_due_date_id ON debt (due_date, id);
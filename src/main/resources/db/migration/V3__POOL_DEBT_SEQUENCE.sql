@@ -0,0 +1 @@
+ALTER SEQUENCE sequence_debt INCREMENT BY 50;
@@ -0,0 +1,17 @@
+CREATE TABLE customer_debt_summary
+(
+    customer_id      BIGINT  NOT NULL,
+    currency_id      BIGINT  NOT NULL,
+    total_amount     DECIMAL NOT NULL,
+    debt_count       BIGINT  NOT NULL,
+    nearest_due_date DATE    NOT NULL,
+    PRIMARY KEY (customer_id, currency_id),
+    FOREIGN KEY (customer_id) references customer (id),
+    FOREIGN KEY (currency_id) references currency (id)
+);
+
+INSERT INTO customer_debt_summary(customer_id, currency_id, total_amount, debt_count, nearest_due_date)
+SELECT customer_id, currency_id, SUM(amount), COUNT(*), MIN(due_date)
+FROM debt
+WHERE customer_id IS NOT NULL
+GROUP BY customer_id, currency_id;
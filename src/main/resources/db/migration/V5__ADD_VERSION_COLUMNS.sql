@@ -0,0 +1,2 @@
+ALTER TABLE customer ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE debt ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,3 @@
+CREATE INDEX idx_debt_customer_id_due_date ON debt (customer_id, due_date);
+CREATE INDEX idx_debt_customer_id_currency_id_due_date ON debt (customer_id, currency_id, due_date);
+CREATE UNIQUE INDEX idx_currency_code ON currency (code);
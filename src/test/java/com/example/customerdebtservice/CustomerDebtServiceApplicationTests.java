@@ -1,10 +1,9 @@
 package com.example.customerdebtservice;
 
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class CustomerDebtServiceApplicationTests {
+class CustomerDebtServiceApplicationTests extends AbstractIntegrationTest {
 
     @Test
     void contextLoads() {
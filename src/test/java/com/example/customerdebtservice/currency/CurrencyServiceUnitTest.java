@@ -1,6 +1,7 @@
 package com.example.customerdebtservice.currency;
 
 import com.example.customerdebtservice.currency.converters.CurrencyConverter;
+import com.example.customerdebtservice.currency.dto.CurrencyData;
 import com.example.customerdebtservice.currency.models.Currency;
 import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
 import com.example.customerdebtservice.currency.services.impl.CurrencyServiceImpl;
@@ -9,13 +10,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,7 +28,7 @@ public class CurrencyServiceUnitTest {
     @Mock
     private CurrencyRepository currencyRepository;
 
-    @Mock
+    @Spy
     private CurrencyConverter currencyConverter;
 
     @InjectMocks
@@ -33,7 +38,8 @@ public class CurrencyServiceUnitTest {
 
     @Test
     public void getCurrencyByCodeShouldReturnCurrency() {
-        when(currencyRepository.findCurrencyByCode(any())).thenReturn(Optional.of(currency));
+        when(currencyRepository.findAll()).thenReturn(List.of(currency));
+        currencyService.refreshCurrencies();
 
         Currency result = currencyService.getCurrencyByCode(currency.getCode());
         assertEquals(result.getId(), currency.getId());
@@ -42,9 +48,56 @@ public class CurrencyServiceUnitTest {
         assertEquals(result.getSymbol(), currency.getSymbol());
     }
 
+    @Test
+    public void getCurrencyByCodeShouldNotQueryRepository() {
+        when(currencyRepository.findAll()).thenReturn(List.of(currency));
+        currencyService.refreshCurrencies();
+
+        currencyService.getCurrencyByCode(currency.getCode());
+        currencyService.getCurrencyByCode(currency.getCode());
+        verify(currencyRepository, times(1)).findAll();
+    }
+
     @Test
     public void getCurrencyByCodeWithWrongCodeShouldReturnResourceNotFoundException() {
-        when(currencyRepository.findCurrencyByCode(any())).thenReturn(Optional.empty());
+        when(currencyRepository.findAll()).thenReturn(List.of(currency));
+        currencyService.refreshCurrencies();
+
+        assertThrows(ResourceNotFoundException.class, () -> currencyService.getCurrencyByCode("USD"));
+    }
+
+    @Test
+    public void getCurrencyByCodeBeforeRefreshShouldReturnResourceNotFoundException() {
         assertThrows(ResourceNotFoundException.class, () -> currencyService.getCurrencyByCode("EUR"));
     }
+
+    @Test
+    public void refreshCurrenciesShouldReplaceSnapshot() {
+        final Currency dollar = new Currency(2L, "Dollar", "USD", "$");
+        when(currencyRepository.findAll()).thenReturn(List.of(currency)).thenReturn(List.of(currency, dollar));
+        currencyService.refreshCurrencies();
+        assertThrows(ResourceNotFoundException.class, () -> currencyService.getCurrencyByCode("USD"));
+
+        List<CurrencyData> result = currencyService.refreshCurrencies();
+        assertEquals(2, result.size());
+        assertEquals(dollar, currencyService.getCurrencyByCode("USD"));
+    }
+
+    @Test
+    public void getCurrencyDataShouldReturnSharedInstance() {
+        when(currencyRepository.findAll()).thenReturn(List.of(currency));
+        currencyService.refreshCurrencies();
+
+        CurrencyData first = currencyService.getCurrencyData(new Currency(1L, "Euro", "EUR", "€"));
+        CurrencyData second = currencyService.getCurrencyData(new Currency(1L, "Euro", "EUR", "€"));
+        assertSame(first, second);
+        assertEquals(new CurrencyData(1L, "Euro", "EUR", "€"), first);
+    }
+
+    @Test
+    public void getCurrencyDataOfUnknownCurrencyShouldConvertCurrency() {
+        CurrencyData result = currencyService.getCurrencyData(new Currency(3L, "Pound", "GBP", "£"));
+        assertEquals(new CurrencyData(3L, "Pound", "GBP", "£"), result);
+        assertNotSame(result, currencyService.getCurrencyData(new Currency(3L, "Pound", "GBP", "£")));
+    }
 }
@@ -1,9 +1,24 @@
 package com.example.customerdebtservice.customer;
 
+import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.customer.controllers.CustomerController;
 import com.example.customerdebtservice.customer.dto.CustomerData;
+import com.example.customerdebtservice.customer.dto.CustomerDebtTotalData;
+import com.example.customerdebtservice.customer.dto.CustomerSummaryData;
+import com.example.customerdebtservice.customer.dto.CustomerDeletionData;
+import com.example.customerdebtservice.customer.dto.CustomerDeletionStatus;
 import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
+import com.example.customerdebtservice.customer.services.CustomerDeletionService;
 import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.exceptions.ServiceUnavailableException;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,20 +30,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -42,6 +65,18 @@ public class CustomerControllerUnitTest {
     @MockBean
     private CustomerService customerService;
 
+    @MockBean
+    private CustomerDeletionService customerDeletionService;
+
+    @MockBean
+    private CustomerDebtSummaryService customerDebtSummaryService;
+
+    @MockBean
+    private DebtService debtService;
+
+    @MockBean
+    private CurrencyService currencyService;
+
     private static final String CUSTOMERS_URL = "/customers";
     private static final ObjectMapper mapper = new ObjectMapper();
     private final CustomerForm customerForm = new CustomerForm();
@@ -62,6 +97,8 @@ public class CustomerControllerUnitTest {
         customerData.setEmail("email@email.com");
         customerData.setCountry("Latvia");
         customerData.setDebts(new ArrayList<>());
+
+        when(customerService.getCustomerSummaries(any())).thenReturn(new SliceImpl<>(new ArrayList<>()));
     }
 
 
@@ -70,11 +107,48 @@ public class CustomerControllerUnitTest {
         List<CustomerData> customerDataList = new ArrayList<>();
         customerDataList.add(customerData);
 
-        when(customerService.getCustomers(any())).thenReturn(customerDataList);
+        when(customerService.getCustomers(any())).thenReturn(new SliceImpl<>(customerDataList));
 
-        mockMvc.perform(get(CUSTOMERS_URL))
+        mockMvc.perform(get(CUSTOMERS_URL).param("include", "debts"))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(customerDataList)));
+        verify(customerService, never()).getCustomerSummaries(any());
+    }
+
+    @Test
+    public void getCustomersShouldReturnSummariesWithoutDebtsByDefault() throws Exception {
+        final CustomerSummaryData summary = new CustomerSummaryData(1L, "Name", "Surname", "Latvia",
+                "email@email.com", 3, List.of(new CustomerDebtTotalData(1L, null, new BigDecimal("30"), 3, null)));
+        when(customerService.getCustomerSummaries(any())).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        mockMvc.perform(get(CUSTOMERS_URL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].debtCount").value(3))
+                .andExpect(jsonPath("$[0].totals[0].totalAmount").value(30))
+                .andExpect(jsonPath("$[0].debts").doesNotExist());
+        verify(customerService, never()).getCustomers(any());
+    }
+
+    @Test
+    public void getCustomersShouldReturnHasNextHeaderWithoutTotal() throws Exception {
+        when(customerService.getCustomerSummaries(any()))
+                .thenReturn(new SliceImpl<>(List.of(new CustomerSummaryData()), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get(CUSTOMERS_URL).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"))
+                .andExpect(header().doesNotExist(PaginationHeaders.TOTAL_COUNT));
+        verify(customerService, never()).countCustomers();
+    }
+
+    @Test
+    public void getCustomersWithTotalShouldReturnTotalCountHeader() throws Exception {
+        when(customerService.countCustomers()).thenReturn(42L);
+
+        mockMvc.perform(get(CUSTOMERS_URL).param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "false"))
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, "42"));
     }
 
     @Test
@@ -85,7 +159,7 @@ public class CustomerControllerUnitTest {
                 .andExpect(status().isOk());
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(customerService).getCustomers(pageableCaptor.capture());
+        verify(customerService).getCustomerSummaries(pageableCaptor.capture());
         PageRequest pageable = (PageRequest) pageableCaptor.getValue();
 
         assertEquals(pageNumber, pageable.getPageNumber(),
@@ -104,7 +178,7 @@ public class CustomerControllerUnitTest {
                 .andExpect(status().isOk());
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(customerService).getCustomers(pageableCaptor.capture());
+        verify(customerService).getCustomerSummaries(pageableCaptor.capture());
         PageRequest pageable = (PageRequest) pageableCaptor.getValue();
 
         assertEquals(pageNumber, pageable.getPageNumber(),
@@ -123,7 +197,7 @@ public class CustomerControllerUnitTest {
                 .andExpect(status().isOk());
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(customerService).getCustomers(pageableCaptor.capture());
+        verify(customerService).getCustomerSummaries(pageableCaptor.capture());
         PageRequest pageable = (PageRequest) pageableCaptor.getValue();
 
         assertEquals(pageNumber, pageable.getPageNumber(),
@@ -143,17 +217,42 @@ public class CustomerControllerUnitTest {
                 .andExpect(status().isOk());
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(customerService).getCustomers(pageableCaptor.capture());
+        verify(customerService).getCustomerSummaries(pageableCaptor.capture());
         PageRequest pageable = (PageRequest) pageableCaptor.getValue();
         System.out.println(pageable);
         assertEquals(PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).descending()), pageable);
     }
 
+    @Test
+    public void getCustomersWithCursorShouldReturnNextCursorHeader() throws Exception {
+        final String nextCursor = "MjA";
+        List<CustomerData> customerDataList = new ArrayList<>();
+        customerDataList.add(customerData);
+
+        when(customerService.getCustomersAfter(eq(""), any()))
+                .thenReturn(new CursorPage<>(customerDataList, nextCursor));
+
+        mockMvc.perform(get(CUSTOMERS_URL).param("after", "").param("include", "debts"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(content().json(mapper.writeValueAsString(customerDataList)));
+    }
+
+    @Test
+    public void getCustomersWithCursorOnLastPageShouldNotReturnNextCursorHeader() throws Exception {
+        when(customerService.getCustomerSummariesAfter(eq("MjA"), any()))
+                .thenReturn(new CursorPage<>(new ArrayList<>(), null));
+
+        mockMvc.perform(get(CUSTOMERS_URL).param("after", "MjA"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
     @Test
     public void getCustomerByIdShouldReturnCustomerData() throws Exception {
         final Long customerId = 1L;
 
-        when(customerService.getCustomerById(customerId)).thenReturn(customerData);
+        when(customerService.getCustomerById(customerId, null)).thenReturn(new VersionedData<>("\"0-0-0\"", customerData));
 
         mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -172,6 +271,18 @@ public class CustomerControllerUnitTest {
                 .andExpect(content().json(mapper.writeValueAsString(customerData)));
     }
 
+    @Test
+    public void createCustomerWhenHashingIsSaturatedShouldReturnServiceUnavailable() throws Exception {
+        when(customerService.createCustomer(any(CustomerForm.class)))
+                .thenThrow(new ServiceUnavailableException("Too many password changes in progress, retry later"));
+
+        mockMvc.perform(post(CUSTOMERS_URL)
+                        .content(mapper.writeValueAsString(customerForm))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     public void createCustomerWithEmptyNameShouldReturnBadRequest() throws Exception {
         customerForm.setName(null);
@@ -230,13 +341,28 @@ public class CustomerControllerUnitTest {
     @Test
     public void updateCustomerShouldReturnStatus200() throws Exception {
         final Long customerId = 1L;
-        CustomerForm customerBeforeUpdate = new CustomerForm();
-        when(customerService.updateCustomer(customerId, customerBeforeUpdate)).thenReturn(customerData);
+        when(customerService.updateCustomer(eq(customerId), any(CustomerForm.class), eq("\"0-0-0\"")))
+                .thenReturn(new VersionedData<>("\"1-0-0\"", customerData));
 
         mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .header(HttpHeaders.IF_MATCH, "\"0-0-0\"")
                         .content(mapper.writeValueAsString(customerForm))
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-0-0\""));
+    }
+
+    @Test
+    public void patchCustomerShouldPassMergePatchToService() throws Exception {
+        final Long customerId = 1L;
+        when(customerService.patchCustomer(eq(customerId), any())).thenReturn(customerData);
+
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"surname\": \"Surname\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.surname").value("Surname"));
+        verify(customerService).patchCustomer(customerId, mapper.readTree("{\"surname\": \"Surname\"}"));
     }
 
     @Test
@@ -245,4 +371,97 @@ public class CustomerControllerUnitTest {
         mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void deleteCustomerAsyncShouldReturnAcceptedWithJobLocation() throws Exception {
+        final CustomerDeletionData deletion = new CustomerDeletionData("job-1", 1L,
+                CustomerDeletionStatus.PENDING, 0, null, null);
+        when(customerDeletionService.startDeletion(1L)).thenReturn(deletion);
+
+        mockMvc.perform(delete(CUSTOMERS_URL + "/1").param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/customers/deletions/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        verify(customerService, never()).deleteCustomer(any(), any());
+    }
+
+    @Test
+    public void deleteCustomerAsyncWithIfMatchShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(CUSTOMERS_URL + "/1").param("async", "true")
+                        .header(HttpHeaders.IF_MATCH, "\"0-0-0\""))
+                .andExpect(status().isBadRequest());
+        verify(customerDeletionService, never()).startDeletion(any());
+        verify(customerService, never()).deleteCustomer(any(), any());
+    }
+
+    @Test
+    public void getDeletionShouldReturnJob() throws Exception {
+        when(customerDeletionService.getDeletion("job-1")).thenReturn(new CustomerDeletionData("job-1", 1L,
+                CustomerDeletionStatus.COMPLETED, 10, null, null));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/deletions/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.deletedDebts").value(10));
+    }
+
+    @Test
+    public void getCustomerTotalsShouldReturnTotals() throws Exception {
+        final CustomerDebtTotalData total = new CustomerDebtTotalData(1L, new CurrencyData(1L, "Euro", "EUR", "€"),
+                new BigDecimal("10.50"), 2, LocalDate.of(2022, 3, 1));
+        when(customerDebtSummaryService.getCustomerTotals(1L)).thenReturn(List.of(total));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/1/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currency.code").value("EUR"))
+                .andExpect(jsonPath("$[0].totalAmount").value(10.5))
+                .andExpect(jsonPath("$[0].debtCount").value(2))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-03-01"));
+    }
+
+    @Test
+    public void getTotalsShouldPassCurrencyAndSort() throws Exception {
+        when(customerDebtSummaryService.getTotals(any(), any()))
+                .thenReturn(new SliceImpl<>(List.of(new CustomerDebtTotalData()), PageRequest.of(0, 1), true));
+        mockMvc.perform(get(CUSTOMERS_URL + "/totals")
+                        .param("currency", "EUR")
+                        .param("sort", "totalAmount,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"));
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(customerDebtSummaryService).getTotals(eq("EUR"), pageableCaptor.capture());
+        assertEquals(Sort.by(Sort.Direction.DESC, "totalAmount"), pageableCaptor.getValue().getSort());
+    }
+
+    @Test
+    public void getCustomerDebtsShouldPassFiltersAndReturnNextCursorHeader() throws Exception {
+        final DebtData debt = new DebtData(5L, new BigDecimal("10.50"), LocalDate.of(2022, 3, 1), 1L,
+                new CurrencyData(1L, "Euro", "EUR", "€"));
+        when(debtService.getCustomerDebts(eq(1L), eq("EUR"), eq(LocalDate.of(2022, 1, 1)),
+                eq(LocalDate.of(2022, 12, 31)), eq(""), any())).thenReturn(new CursorPage<>(List.of(debt), "MTA"));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/1/debts")
+                        .param("currency", "EUR")
+                        .param("dueFrom", "2022-01-01")
+                        .param("dueTo", "2022-12-31")
+                        .param("after", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "MTA"))
+                .andExpect(jsonPath("$[0].id").value(5))
+                .andExpect(jsonPath("$[0].dueDate").value("2022-03-01"));
+    }
+
+    @Test
+    public void getCustomerDebtsOnLastPageShouldNotReturnNextCursorHeader() throws Exception {
+        when(debtService.getCustomerDebts(eq(1L), eq(null), eq(null), eq(null), eq(null), any()))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/1/debts"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(content().json("[]"));
+    }
 }
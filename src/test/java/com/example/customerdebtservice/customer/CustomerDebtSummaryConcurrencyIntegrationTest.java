@@ -0,0 +1,79 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Guards that the first debts of a customer in a currency written concurrently end up in one summary
+ */
+public class CustomerDebtSummaryConcurrencyIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DebtService debtService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerDebtSummaryRepository customerDebtSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void concurrentFirstDebtsShouldBeAddedToOneSummary() throws Exception {
+        final Long customerId = customerRepository.save(TestFixtures.customer("Concurrent")).getId();
+
+        // Both transactions found no summary to update before either of them inserts one
+        final CountDownLatch inserting = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            inserting.countDown();
+            inserting.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).update(startsWith("insert into customer_debt_summary"), (Object[]) any());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> first = executor.submit(() -> debtService.createDebt(
+                    new DebtForm(new BigDecimal("10"), "EUR", LocalDate.of(2022, 3, 10), customerId)));
+            final Future<?> second = executor.submit(() -> debtService.createDebt(
+                    new DebtForm(new BigDecimal("5"), "EUR", LocalDate.of(2022, 3, 5), customerId)));
+            first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(jdbcTemplate, times(2)).update(startsWith("insert into customer_debt_summary"), (Object[]) any());
+        final List<CustomerDebtSummary> summaries =
+                customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(customerId);
+        assertEquals(1, summaries.size());
+        assertEquals(0, new BigDecimal("15").compareTo(summaries.get(0).getTotalAmount()));
+        assertEquals(2, summaries.get(0).getDebtCount());
+        assertEquals(LocalDate.of(2022, 3, 5), summaries.get(0).getNearestDueDate());
+    }
+}
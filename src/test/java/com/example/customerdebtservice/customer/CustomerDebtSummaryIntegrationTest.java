@@ -0,0 +1,282 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.customer.converters.CustomerDebtTotalConverter;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards that debt totals follow every debt write and are read without aggregating debts
+ */
+@WithMockUser(roles = "USER")
+public class CustomerDebtSummaryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerDebtTotalConverter customerDebtTotalConverter;
+
+    private static final String CUSTOMERS_URL = "/customers";
+    private static final String DEBTS_URL = "/debts";
+
+    private Long customerId;
+
+    @BeforeEach
+    public void init() {
+        customerId = customerRepository.save(TestFixtures.customer("Summary")).getId();
+    }
+
+    @Test
+    public void totalsShouldFollowCreatedUpdatedAndDeletedDebts() throws Exception {
+        final Long first = createDebt("100.50", "EUR", "2022-03-10");
+        createDebt("20", "EUR", "2022-03-05");
+        final Long third = createDebt("7", "USD", "2022-04-01");
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].currency.code").value("EUR"))
+                .andExpect(jsonPath("$[0].totalAmount").value(120.5))
+                .andExpect(jsonPath("$[0].debtCount").value(2))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-03-05"))
+                .andExpect(jsonPath("$[1].currency.code").value("USD"))
+                .andExpect(jsonPath("$[1].totalAmount").value(7));
+
+        mockMvc.perform(put(DEBTS_URL + "/" + first)
+                        .content(debtJson("50", "USD", "2022-02-01"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(DEBTS_URL + "/" + third))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].totalAmount").value(20))
+                .andExpect(jsonPath("$[0].debtCount").value(1))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-03-05"))
+                .andExpect(jsonPath("$[1].totalAmount").value(50))
+                .andExpect(jsonPath("$[1].debtCount").value(1))
+                .andExpect(jsonPath("$[1].nearestDueDate").value("2022-02-01"));
+    }
+
+    @Test
+    public void totalsShouldFollowPatchedDebts() throws Exception {
+        final Long first = createDebt("10", "EUR", "2022-03-10");
+        final Long second = createDebt("5", "EUR", "2022-04-01");
+
+        mockMvc.perform(patch(DEBTS_URL + "/" + first)
+                        .content("{\"amount\": \"30\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(DEBTS_URL + "/" + second)
+                        .content("{\"dueDate\": \"2022-03-01\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].totalAmount").value(35))
+                .andExpect(jsonPath("$[0].debtCount").value(2))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-03-01"));
+    }
+
+    @Test
+    public void deletingNearestDebtShouldRecalculateNearestDueDate() throws Exception {
+        final Long nearest = createDebt("10", "EUR", "2022-03-01");
+        createDebt("10", "EUR", "2022-05-01");
+        createDebt("10", "EUR", "2022-04-01");
+
+        mockMvc.perform(delete(DEBTS_URL + "/" + nearest))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-04-01"))
+                .andExpect(jsonPath("$[0].debtCount").value(2));
+    }
+
+    @Test
+    public void totalsShouldFollowBatchImportAndBulkDeletion() throws Exception {
+        mockMvc.perform(post(DEBTS_URL + "/batch")
+                        .content(debtJson("1", "EUR", "2022-01-01") + "\n" +
+                                debtJson("2", "EUR", "2022-02-01") + "\n" +
+                                debtJson("4", "EUR", "2022-03-01") + "\n" +
+                                debtJson("8", "LVL", "2022-01-15") + "\n")
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(4));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(jsonPath("$[0].totalAmount").value(7))
+                .andExpect(jsonPath("$[0].debtCount").value(3))
+                .andExpect(jsonPath("$[1].totalAmount").value(8));
+
+        mockMvc.perform(delete(DEBTS_URL)
+                        .param("customerId", String.valueOf(customerId))
+                        .param("dueBefore", "2022-02-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].currency.code").value("EUR"))
+                .andExpect(jsonPath("$[0].totalAmount").value(4))
+                .andExpect(jsonPath("$[0].debtCount").value(1))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("2022-03-01"));
+    }
+
+    @Test
+    public void deletingDebtsOfEveryCustomerShouldSubtractThemFromTotals() throws Exception {
+        createDebt("5", "EUR", "1999-01-01");
+        createDebt("4", "EUR", "1999-03-01");
+        createDebt("7", "USD", "1999-01-15");
+
+        // Debts left behind by other tests in the shared database are deleted as well
+        final Long due = jdbcTemplate.queryForObject("select count(*) from debt where due_date < '1999-02-01'",
+                Long.class);
+        mockMvc.perform(delete(DEBTS_URL).param("dueBefore", "1999-02-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(due));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].currency.code").value("EUR"))
+                .andExpect(jsonPath("$[0].totalAmount").value(4))
+                .andExpect(jsonPath("$[0].debtCount").value(1))
+                .andExpect(jsonPath("$[0].nearestDueDate").value("1999-03-01"));
+    }
+
+    @Test
+    public void getCustomerTotalsShouldReadSummariesOnly() throws Exception {
+        createDebt("10", "EUR", "2022-03-01");
+        createDebt("10", "USD", "2022-03-01");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "Totals should be read with a single statement");
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getLoadCount());
+    }
+
+    @Test
+    public void totalsShouldBeReadInReadOnlyTransaction() throws Exception {
+        createDebt("10", "EUR", "2022-03-01");
+        final List<Boolean> readOnly = new ArrayList<>();
+        doAnswer(invocation -> {
+            readOnly.add(TransactionSynchronizationManager.isActualTransactionActive()
+                    && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return invocation.callRealMethod();
+        }).when(customerDebtTotalConverter).convert(any(CustomerDebtSummary.class));
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(CUSTOMERS_URL + "/totals").param("currency", "EUR").param("size", "1"))
+                .andExpect(status().isOk());
+
+        assertFalse(readOnly.isEmpty());
+        readOnly.forEach(value -> assertTrue(value, "Totals should be read in a read-only transaction"));
+    }
+
+    @Test
+    public void getTotalsShouldBeSortable() throws Exception {
+        // Larger than any other total in the shared database
+        createDebt("1000000000", "LVL", "2022-03-01");
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/totals")
+                        .param("currency", "LVL")
+                        .param("sort", "totalAmount,desc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].customerId").value(customerId))
+                .andExpect(jsonPath("$[0].totalAmount").value(1000000000));
+    }
+
+    @Test
+    public void getTotalsShouldNotCountSummaries() throws Exception {
+        createDebt("10", "EUR", "2022-03-01");
+        createDebt("10", "USD", "2022-03-01");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(CUSTOMERS_URL + "/totals").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"));
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "Totals should be read without a count query");
+    }
+
+    @Test
+    public void getTotalsOfNonExistingCustomerShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/999999/totals"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void deleteCustomerShouldDeleteTotals() throws Exception {
+        createDebt("10", "EUR", "2022-03-01");
+
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId + "/totals"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createDebt(String amount, String currency, String dueDate) throws Exception {
+        String response = mockMvc.perform(post(DEBTS_URL)
+                        .content(debtJson(amount, currency, dueDate))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Integer) JsonPath.parse(response).read("$.id")).longValue();
+    }
+
+    private String debtJson(String amount, String currency, String dueDate) {
+        return String.format("{\"amount\": \"%s\", \"currency\": \"%s\", \"dueDate\": \"%s\", \"customerId\": %d}",
+                amount, currency, dueDate, customerId);
+    }
+}
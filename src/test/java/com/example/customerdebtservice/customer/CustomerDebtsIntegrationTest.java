@@ -0,0 +1,154 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CustomerDebtsIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String CUSTOMERS_URL = "/customers";
+    private static final int DEBTS_PER_CUSTOMER = 30;
+    private static final LocalDate DUE_DATE = LocalDate.of(2022, 3, 1);
+
+    private Customer customer;
+    private Statistics statistics;
+
+    @BeforeAll
+    public void setup() {
+        customer = saveCustomer();
+        saveCustomer();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void pagingThroughCustomerDebtsShouldReturnEachDebtOnceOrderedByDueDate() throws Exception {
+        final List<Debt> expected = customer.getDebts().stream()
+                .sorted(Comparator.comparing(Debt::getDueDate).thenComparing(Debt::getId))
+                .collect(Collectors.toList());
+
+        final List<Long> ids = new ArrayList<>();
+        String after = "";
+        while (Objects.nonNull(after)) {
+            statistics.clear();
+            final MvcResult result = mockMvc.perform(get(CUSTOMERS_URL + "/" + customer.getId() + "/debts")
+                            .param("after", after)
+                            .param("size", "7"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertEquals(1, statistics.getPrepareStatementCount(),
+                    "Page of customer debts should be fetched with currencies in one statement");
+            final List<Number> pageIds = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+            pageIds.forEach(id -> ids.add(id.longValue()));
+            after = result.getResponse().getHeader(CursorPage.NEXT_CURSOR_HEADER);
+        }
+
+        assertEquals(expected.stream().map(Debt::getId).collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    public void customerDebtsShouldBeFilteredByCurrencyAndDueDateRange() throws Exception {
+        final LocalDate dueFrom = DUE_DATE.plusDays(3);
+        final LocalDate dueTo = DUE_DATE.plusDays(10);
+        final long expected = customer.getDebts().stream()
+                .filter(debt -> debt.getCurrency().getCode().equals("EUR"))
+                .filter(debt -> !debt.getDueDate().isBefore(dueFrom) && !debt.getDueDate().isAfter(dueTo))
+                .count();
+
+        int count = 0;
+        String after = "";
+        while (Objects.nonNull(after)) {
+            final MvcResult result = mockMvc.perform(get(CUSTOMERS_URL + "/" + customer.getId() + "/debts")
+                            .param("currency", "EUR")
+                            .param("dueFrom", dueFrom.toString())
+                            .param("dueTo", dueTo.toString())
+                            .param("after", after)
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            final String content = result.getResponse().getContentAsString();
+            final List<String> codes = JsonPath.parse(content).read("$[*].currency.code");
+            final List<String> dueDates = JsonPath.parse(content).read("$[*].dueDate");
+            assertTrue(codes.stream().allMatch("EUR"::equals), "Only debts in EUR should be returned: " + codes);
+            assertTrue(dueDates.stream().map(LocalDate::parse)
+                            .allMatch(date -> !date.isBefore(dueFrom) && !date.isAfter(dueTo)),
+                    "Only debts due within the range should be returned: " + dueDates);
+            count += codes.size();
+            after = result.getResponse().getHeader(CursorPage.NEXT_CURSOR_HEADER);
+        }
+
+        assertEquals(expected, count);
+    }
+
+    @Test
+    public void debtsOfMissingCustomerShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/-1/debts"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void debtsWithReversedDueDateRangeShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customer.getId() + "/debts")
+                        .param("dueFrom", "2022-03-10")
+                        .param("dueTo", "2022-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void debtsSortedByAmountShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customer.getId() + "/debts").param("sort", "amount"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Customer saveCustomer() {
+        final Customer customer = TestFixtures.customer("Debts");
+        for (int i = 0; i < DEBTS_PER_CUSTOMER; i++) {
+            // Two debts share each due date, so that pages also break ties by ID
+            customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(i + 1),
+                    DUE_DATE.plusDays((DEBTS_PER_CUSTOMER - i) / 2),
+                    currencyRepository.findCurrencyByCode(i % 3 == 0 ? "LVL" : "EUR").orElseThrow()));
+        }
+        return customerRepository.save(customer);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.models.CustomerDebtSummary;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards that customers are deleted with set-based statements, without loading the customer or its debts
+ */
+@WithMockUser(roles = "USER")
+public class CustomerDeleteIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private CustomerDebtSummaryRepository customerDebtSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String CUSTOMERS_URL = "/customers";
+    private static final int DEBTS_PER_CUSTOMER = 50;
+
+    private Statistics statistics;
+    private Customer customer;
+    private Customer otherCustomer;
+
+    @BeforeEach
+    public void init() {
+        customer = customerRepository.save(customerWithDebts());
+        otherCustomer = customerRepository.save(customerWithDebts());
+        jdbcTemplate.update("insert into customer_debt_summary " +
+                "(customer_id, currency_id, total_amount, debt_count, nearest_due_date) " +
+                "select customer_id, currency_id, sum(amount), count(*), min(due_date) from debt " +
+                "where customer_id in (?, ?) group by customer_id, currency_id",
+                customer.getId(), otherCustomer.getId());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void deleteCustomerShouldIssueStatementPerTable() throws Exception {
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customer.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(3, statistics.getPrepareStatementCount(),
+                "DELETE " + CUSTOMERS_URL + "/{id} should delete totals, debts and customer with one statement each");
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertFalse(customerRepository.existsById(customer.getId()));
+        assertEquals(DEBTS_PER_CUSTOMER,
+                debtRepository.findIdsByCustomerId(otherCustomer.getId(), Pageable.unpaged()).size());
+    }
+
+    @Test
+    public void deleteNonExistingCustomerShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + 999_999))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void deleteCustomerAsyncShouldCompleteInBackground() throws Exception {
+        MvcResult result = mockMvc.perform(delete(CUSTOMERS_URL + "/" + customer.getId()).param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        final String location = result.getResponse().getHeader(HttpHeaders.LOCATION);
+
+        String status = "PENDING";
+        for (int attempt = 0; attempt < 100 && !status.equals("COMPLETED") && !status.equals("FAILED"); attempt++) {
+            Thread.sleep(50);
+            String job = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = JsonPath.parse(job).read("$.status");
+        }
+
+        assertEquals("COMPLETED", status);
+        assertFalse(customerRepository.existsById(customer.getId()));
+        assertEquals(DEBTS_PER_CUSTOMER,
+                debtRepository.findIdsByCustomerId(otherCustomer.getId(), Pageable.unpaged()).size());
+        assertTrue(customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(customer.getId()).isEmpty());
+        final List<CustomerDebtSummary> otherTotals =
+                customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(otherCustomer.getId());
+        assertEquals(1, otherTotals.size());
+        assertEquals(DEBTS_PER_CUSTOMER, otherTotals.get(0).getDebtCount());
+    }
+
+    @Test
+    public void deleteNonExistingCustomerAsyncShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + 999_999).param("async", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getNonExistingDeletionShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/deletions/unknown"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Customer customerWithDebts() {
+        final Customer customer = TestFixtures.customer("Delete");
+        for (int i = 0; i < DEBTS_PER_CUSTOMER; i++) {
+            customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(i + 1),
+                    LocalDate.of(2022, 3, 1).plusDays(i), currencyRepository.findCurrencyByCode("EUR").orElseThrow()));
+        }
+        return customer;
+    }
+}
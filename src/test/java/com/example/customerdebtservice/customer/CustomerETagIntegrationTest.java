@@ -0,0 +1,214 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import com.example.customerdebtservice.security.PasswordHasher;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+public class CustomerETagIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DebtViewConverter debtViewConverter;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private static final String CUSTOMERS_URL = "/customers";
+
+    private Long customerId;
+    private String email;
+
+    @BeforeEach
+    public void init() {
+        final Customer customer = customerRepository.save(TestFixtures.customer("ETag"));
+        customerId = customer.getId();
+        email = customer.getEmail();
+    }
+
+    @Test
+    public void getCustomerWithCurrentETagShouldReturnNotModifiedWithoutConvertingDebts() throws Exception {
+        mockMvc.perform(post("/debts")
+                        .content("{\"amount\": \"10\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", "
+                                + "\"customerId\": " + customerId + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated());
+        final String eTag = getETag();
+
+        clearInvocations(debtViewConverter);
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        verify(debtViewConverter, never()).convert(any(DebtView.class));
+    }
+
+    @Test
+    public void changingDebtsOfCustomerShouldChangeETag() throws Exception {
+        final String eTag = getETag();
+        final String created = mockMvc.perform(post("/debts")
+                        .content("{\"amount\": \"10\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", "
+                                + "\"customerId\": " + customerId + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        final String withDebtETag = getETag();
+        assertNotEquals(eTag, withDebtETag, "Added debt should change the ETag of the customer");
+
+        final Long debtId = JsonPath.parse(created).read("$.id", Long.class);
+        mockMvc.perform(post("/debts/" + debtId + "/adjust")
+                        .content("{\"delta\": \"1\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+        assertNotEquals(withDebtETag, getETag(), "Adjusted debt should change the ETag of the customer");
+    }
+
+    @Test
+    public void updateCustomerWithStaleETagShouldReturnPreconditionFailed() throws Exception {
+        final String staleETag = getETag();
+        final String updatedETag = mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .header(HttpHeaders.IF_MATCH, staleETag)
+                        .content(customerJson("Updated"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(updatedETag, getETag(), "PUT should return the ETag of the stored version");
+
+        mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .header(HttpHeaders.IF_MATCH, staleETag)
+                        .content(customerJson("Overwritten"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Updated", customerRepository.findById(customerId).orElseThrow().getSurname());
+    }
+
+    @Test
+    public void deleteCustomerWithStaleETagShouldReturnPreconditionFailed() throws Exception {
+        final String staleETag = getETag();
+        mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .content(customerJson("Updated"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId).header(HttpHeaders.IF_MATCH, staleETag))
+                .andExpect(status().isPreconditionFailed());
+        assertTrue(customerRepository.existsById(customerId));
+
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId).header(HttpHeaders.IF_MATCH, getETag()))
+                .andExpect(status().isOk());
+        assertTrue(customerRepository.findById(customerId).isEmpty());
+    }
+
+    @Test
+    public void conditionalWritesShouldNotLoadDebtsOfCustomer() throws Exception {
+        mockMvc.perform(post("/debts")
+                        .content("{\"amount\": \"10\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", "
+                                + "\"customerId\": " + customerId + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated());
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        final String updatedETag = mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .header(HttpHeaders.IF_MATCH, getETag())
+                        .content(customerJson("Updated"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId).header(HttpHeaders.IF_MATCH, updatedETag))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getLoadCount(),
+                "Entity tags should be computed from debt projections");
+        assertTrue(customerRepository.findById(customerId).isEmpty());
+    }
+
+    @Test
+    public void asyncDeleteWithIfMatchShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(CUSTOMERS_URL + "/" + customerId).param("async", "true")
+                        .header(HttpHeaders.IF_MATCH, getETag()))
+                .andExpect(status().isBadRequest());
+        assertTrue(customerRepository.existsById(customerId));
+    }
+
+    @Test
+    public void customerModifiedWhilePasswordIsHashedShouldReturnConflict() throws Exception {
+        final List<Boolean> inTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            final Customer concurrent = customerRepository.findById(customerId).orElseThrow();
+            concurrent.setSurname("Concurrent " + inTransaction.size());
+            customerRepository.save(concurrent);
+            return invocation.callRealMethod();
+        }).when(passwordHasher).hash(any(), any(), any());
+
+        mockMvc.perform(put(CUSTOMERS_URL + "/" + customerId)
+                        .content(customerJson("Updated"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"password\": \"changed\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isConflict());
+
+        assertEquals(List.of(false, false), inTransaction, "Passwords should be hashed without a transaction");
+        assertEquals("Concurrent 2", customerRepository.findById(customerId).orElseThrow().getSurname());
+    }
+
+    private String getETag() throws Exception {
+        return mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private String customerJson(String surname) {
+        return "{\"name\": \"ETag\", \"surname\": \"" + surname + "\", \"country\": \"Latvia\", \"email\": \""
+                + email + "\", \"password\": \"password\"}";
+    }
+}
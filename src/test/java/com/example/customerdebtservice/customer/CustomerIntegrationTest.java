@@ -1,6 +1,8 @@
 package com.example.customerdebtservice.customer;
 
 import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
 import org.json.JSONException;
@@ -9,8 +11,6 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -20,16 +20,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@AutoConfigureMockMvc
-@SpringBootTest
 @WithMockUser(roles = "USER")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
-public class CustomerIntegrationTest {
+public class CustomerIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired
     private MockMvc mockMvc;
 
     private static final String CUSTOMERS_URL = "/customers";
+    private static final String EMAIL = TestFixtures.uniqueEmail("customer");
 
     private static final JSONObject correctJsonCustomerData = new JSONObject();
     private static final CustomerForm customerForm = new CustomerForm();
@@ -41,7 +40,7 @@ public class CustomerIntegrationTest {
         String surname = "surname";
         String password = "password";
         String country = "country";
-        String email = "random@test.com";
+        String email = EMAIL;
 
         customerForm.setName(name);
         customerForm.setSurname(surname);
@@ -0,0 +1,144 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.RecordingStatementInspector;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+public class CustomerPatchIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String CUSTOMERS_URL = "/customers";
+
+    private Long customerId;
+    private String email;
+    private String passwordHash;
+
+    @BeforeEach
+    public void init() {
+        passwordHash = passwordEncoder.encode(TestFixtures.PASSWORD);
+        Customer customer = TestFixtures.customer("Patch");
+        customer.setSurname("Custmer");
+        customer.setPassword(passwordHash);
+        customerId = customerRepository.save(customer).getId();
+        email = customer.getEmail();
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    public void patchSurnameShouldUpdateOnlySurnameWithoutHashingPassword() throws Exception {
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"surname\": \"Customer\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.surname").value("Customer"))
+                .andExpect(jsonPath("$.name").value("Patch"))
+                .andExpect(jsonPath("$.email").value(email));
+
+        final List<String> updates = RecordingStatementInspector.statementsStartingWith("update customer ");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).matches("(?i)update customer set surname=\\?, version=\\? "
+                + "where id=\\? and version=\\?"), updates.get(0));
+        assertEquals(passwordHash, customerRepository.findById(customerId).orElseThrow().getPassword());
+    }
+
+    @Test
+    public void patchShouldNotLoadDebtsOfCustomer() throws Exception {
+        debtRepository.save(TestFixtures.debt(customerRepository.findById(customerId).orElseThrow(),
+                new BigDecimal("10.00"), LocalDate.of(2022, 3, 1),
+                currencyRepository.findCurrencyByCode("EUR").orElseThrow()));
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"name\": \"Patched\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Patched"))
+                .andExpect(jsonPath("$.debts.length()").value(1))
+                .andExpect(jsonPath("$.debts[0].amount").value(10.0));
+
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getLoadCount(),
+                "Debts should be read as projections");
+    }
+
+    @Test
+    public void patchPasswordShouldStoreNewHash() throws Exception {
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"password\": \"changed\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk());
+
+        final String hash = customerRepository.findById(customerId).orElseThrow().getPassword();
+        assertNotEquals(passwordHash, hash);
+        assertTrue(passwordEncoder.matches("changed", hash));
+    }
+
+    @Test
+    public void patchEmailOfAnotherCustomerShouldReturnConflict() throws Exception {
+        Customer other = customerRepository.save(TestFixtures.customer("Other"));
+
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"email\": \"" + other.getEmail() + "\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isConflict());
+        assertEquals(email, customerRepository.findById(customerId).orElseThrow().getEmail());
+    }
+
+    @Test
+    public void patchRemovingRequiredAttributeShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"name\": null}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch(CUSTOMERS_URL + "/" + customerId)
+                        .content("{\"email\": \"wrong@email\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isBadRequest());
+
+        assertTrue(RecordingStatementInspector.statementsStartingWith("update customer ").isEmpty());
+    }
+}
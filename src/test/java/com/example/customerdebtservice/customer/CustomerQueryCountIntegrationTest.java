@@ -0,0 +1,187 @@
+package com.example.customerdebtservice.customer;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.pagination.SeekCursor;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements issued per customer read endpoint,
+ * so that it stays constant regardless of page size and number of debts
+ */
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CustomerQueryCountIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String CUSTOMERS_URL = "/customers";
+    private static final int CUSTOMER_COUNT = 25;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEBTS_PER_CUSTOMER = 3;
+    // Other tests add customers to the shared database, pages start with the customers seeded here
+    private static final String NEWEST_FIRST = "id,desc";
+
+    private Statistics statistics;
+    private Long firstCustomerId;
+    private Long customerId;
+
+    @BeforeAll
+    public void setup() {
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            Customer customer = TestFixtures.customer("Query-count");
+            for (int j = 0; j < DEBTS_PER_CUSTOMER; j++) {
+                customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(j + 1), LocalDate.of(2022, 3, j + 1),
+                        currencyRepository.findCurrencyByCode(j % 2 == 0 ? "EUR" : "USD").orElseThrow()));
+            }
+            customerId = customerRepository.save(customer).getId();
+            if (i == 0) {
+                firstCustomerId = customerId;
+            }
+        }
+        // Debts are saved together with customers, bypassing the service which maintains the totals
+        jdbcTemplate.update("insert into customer_debt_summary " +
+                "(customer_id, currency_id, total_amount, debt_count, nearest_due_date) " +
+                "select customer_id, currency_id, sum(amount), count(*), min(due_date) from debt " +
+                "where customer_id between ? and ? group by customer_id, currency_id", firstCustomerId, customerId);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    public void init() {
+        statistics.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    public void getCustomersWithDebtsShouldIssueConstantNumberOfStatements(int pageSize) throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL).param("size", String.valueOf(pageSize)).param("sort", NEWEST_FIRST)
+                        .param("include", "debts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(pageSize))
+                .andExpect(jsonPath("$[0].debts.length()").value(DEBTS_PER_CUSTOMER))
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"));
+
+        assertEquals(2, statistics.getPrepareStatementCount(),
+                "GET " + CUSTOMERS_URL + " should select IDs and fetch customers with debts without counting them");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    public void getCustomerSummariesShouldNotReadDebts(int pageSize) throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL).param("size", String.valueOf(pageSize)).param("sort", NEWEST_FIRST))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(pageSize))
+                .andExpect(jsonPath("$[0].debts").doesNotExist())
+                .andExpect(jsonPath("$[0].debtCount").value(DEBTS_PER_CUSTOMER))
+                .andExpect(jsonPath("$[0].totals.length()").value(2))
+                .andExpect(jsonPath("$[0].totals[0].currency.code").value("EUR"))
+                .andExpect(jsonPath("$[0].totals[0].totalAmount").value(4))
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"));
+
+        assertEquals(2, statistics.getPrepareStatementCount(),
+                "GET " + CUSTOMERS_URL + " should select customer columns and totals of the page");
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                "Customers should be projected without managed entities");
+    }
+
+    @Test
+    public void getCustomersWithTotalShouldCountOnlyOncePerTtl() throws Exception {
+        final long count = customerRepository.count();
+        final String total = String.valueOf(count);
+        mockMvc.perform(get(CUSTOMERS_URL).param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"))
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, total));
+
+        statistics.clear();
+        mockMvc.perform(get(CUSTOMERS_URL).param("withTotal", "true").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, String.valueOf(count > 2 * PAGE_SIZE)))
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, total));
+        assertEquals(2, statistics.getPrepareStatementCount(),
+                "GET " + CUSTOMERS_URL + " with total should reuse the cached count");
+    }
+
+    @Test
+    public void getCustomersWithCursorShouldIssueTwoStatementsPerPage() throws Exception {
+        final int pageSize = 10;
+        final Set<Long> customerIds = new HashSet<>();
+        String cursor = SeekCursor.ofId(firstCustomerId - 1).encode();
+        while (Objects.nonNull(cursor)) {
+            statistics.clear();
+            MvcResult result = mockMvc.perform(get(CUSTOMERS_URL)
+                            .param("after", cursor)
+                            .param("size", String.valueOf(pageSize)))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertEquals(2, statistics.getPrepareStatementCount(),
+                    "GET " + CUSTOMERS_URL + " with cursor should select customers and totals of the page");
+
+            List<Integer> ids = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+            ids.forEach(id -> customerIds.add(id.longValue()));
+            cursor = result.getResponse().getHeader(CursorPage.NEXT_CURSOR_HEADER);
+        }
+        assertEquals(CUSTOMER_COUNT, customerIds.size(), "Every customer should be returned exactly once");
+        assertEquals(firstCustomerId, Collections.min(customerIds));
+    }
+
+    @Test
+    public void getCustomerByIdShouldIssueSingleStatement() throws Exception {
+        mockMvc.perform(get(CUSTOMERS_URL + "/" + customerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.debts.length()").value(DEBTS_PER_CUSTOMER))
+                .andExpect(jsonPath("$.debts[0].currency.code").exists());
+
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET " + CUSTOMERS_URL + "/{id} should fetch customer, debts and currencies in one statement");
+    }
+}
@@ -4,8 +4,18 @@ import com.example.customerdebtservice.customer.converters.CustomerConverter;
 import com.example.customerdebtservice.customer.dto.CustomerData;
 import com.example.customerdebtservice.customer.forms.CustomerForm;
 import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.projections.CustomerSummaryView;
+import com.example.customerdebtservice.customer.projections.CustomerWithDebtRow;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
 import com.example.customerdebtservice.customer.repositories.CustomerRepository;
 import com.example.customerdebtservice.customer.services.impl.CustomerServiceImpl;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.security.PasswordHasher;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceExistsException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeAll;
@@ -14,19 +24,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,16 +53,26 @@ public class CustomerServiceUnitTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private DebtRepository debtRepository;
+
+    @Mock
+    private CustomerDebtSummaryRepository customerDebtSummaryRepository;
+
     @Mock
     private CustomerConverter customerConverter;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private DebtViewConverter debtViewConverter;
+
+    @Mock
+    private PasswordHasher passwordHasher;
 
     @InjectMocks
     private CustomerServiceImpl customerService;
 
     private final static List<Customer> customers = new ArrayList<>();
+    private final static List<CustomerSummaryView> customerViews = new ArrayList<>();
     private final static List<CustomerData> expectedCustomerDataList = new ArrayList<>();
 
     @BeforeAll
@@ -58,6 +86,7 @@ public class CustomerServiceUnitTest {
             customer.setPassword("password"+i);
             customer.setDebts(new ArrayList<>());
             customers.add(customer);
+            customerViews.add(summaryView(i, 0L));
 
             CustomerData customerData = new CustomerData();
             customerData.setId(i);
@@ -71,21 +100,30 @@ public class CustomerServiceUnitTest {
 
     @Test
     public void getAllCustomersShouldReturnCustomerDataList() {
-        Page<Customer> customerPage = new PageImpl<>(customers);
         Pageable pageable = PageRequest.of(0, 20);
-        when(customerRepository.findAll(pageable)).thenReturn(customerPage);
-        when(customerConverter.convert(any(Customer.class))).thenReturn(expectedCustomerDataList.get(0));
-
-        List<CustomerData> result = customerService.getCustomers(pageable);
-        assertEquals(result.size(), customers.size(),
+        final DebtView debt = new DebtView(1L, BigDecimal.ONE, LocalDate.of(2022, 2, 1), 2L, 0L, 1L, "Euro", "EUR",
+                "€");
+        when(customerRepository.findSummaries(pageable)).thenReturn(new SliceImpl<>(customerViews, pageable, true));
+        when(debtRepository.findAllByCustomerIdIn(
+                customers.stream().map(Customer::getId).collect(Collectors.toList()))).thenReturn(List.of(debt));
+        when(debtViewConverter.convert(debt)).thenReturn(new DebtData());
+
+        Slice<CustomerData> result = customerService.getCustomers(pageable);
+        assertEquals(result.getNumberOfElements(), customers.size(),
                 "Size of initial list of customers doesn't equal to the list returned by service");
+        assertEquals(expectedCustomerDataList.get(5).getName(), result.getContent().get(5).getName());
+        assertEquals(1, result.getContent().get(1).getDebts().size(), "Debt should belong to its customer only");
+        assertTrue(result.getContent().get(0).getDebts().isEmpty());
+        assertTrue(result.hasNext());
+        verify(customerRepository, never()).count();
+        verify(customerConverter, never()).convert(any(Customer.class));
 
     }
 
     @Test
     public void getCustomerByIdShouldReturnCustomer() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.ofNullable(customers.get(0)));
-        when(customerConverter.convert(any(Customer.class))).thenReturn(expectedCustomerDataList.get(0));
+        when(customerRepository.findWithDebtRowsById(any(Long.class))).thenReturn(List.of(new CustomerWithDebtRow(1L,
+                "Customer 1", "Surname 1", "Country 1", null, 0L, null, null, null, null, null, null, null, null)));
 
         CustomerData result = customerService.getCustomerById(1L);
         assertEquals(result.getId(), expectedCustomerDataList.get(0).getId());
@@ -96,14 +134,14 @@ public class CustomerServiceUnitTest {
 
     @Test
     public void getCustomerByIdWithWrongIdShouldReturnResourceNotFoundException() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(customerRepository.findWithDebtRowsById(any(Long.class))).thenReturn(List.of());
         assertThrows(ResourceNotFoundException.class, () -> customerService.getCustomerById(1L));
     }
 
     @Test
     public void createCustomerShouldReturnNewCreatedCustomerData() {
         when(customerRepository.findByEmail(any())).thenReturn(Optional.empty());
-        when(passwordEncoder.encode(any())).thenReturn("12345");
+        when(passwordHasher.hash(any(), any(), any())).thenReturn("12345");
         when(customerRepository.save(any(Customer.class))).thenReturn(customers.get(0));
         when(customerConverter.convert(any(Customer.class))).thenReturn(expectedCustomerDataList.get(0));
 
@@ -119,31 +157,88 @@ public class CustomerServiceUnitTest {
 
     @Test
     public void updateCustomerShouldReturnUpdatedCustomerData() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.of(new Customer()));
-        when(passwordEncoder.encode(any())).thenReturn("12345");
-        when(customerRepository.save(any(Customer.class))).thenReturn(customers.get(0));
-        when(customerConverter.convert(any(Customer.class))).thenReturn(expectedCustomerDataList.get(0));
+        when(customerRepository.findWithDebtRowsById(1L)).thenReturn(List.of(new CustomerWithDebtRow(1L,
+                "Customer 1", "Surname 1", "Country 1", null, 0L, null, null, null, null, null, null, null, null)));
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(new Customer()));
+        when(passwordHasher.hash(any(), any(), any())).thenReturn("12345");
+        when(customerRepository.saveAndFlush(any(Customer.class))).thenReturn(customers.get(0));
+
+        VersionedData<CustomerData> result = customerService.updateCustomer(1L, new CustomerForm(), null);
+        assertEquals(expectedCustomerDataList.get(0), result.getContent());
+    }
 
-        CustomerData result = customerService.updateCustomer(1L, new CustomerForm());
-        assertEquals(expectedCustomerDataList.get(0), result);
+    @Test
+    public void updateCustomerWithStaleETagShouldReturnPreconditionFailedException() {
+        when(customerRepository.findWithDebtRowsById(1L)).thenReturn(List.of(new CustomerWithDebtRow(1L,
+                "Customer 1", "Surname 1", "Country 1", null, 2L, null, null, null, null, null, null, null, null)));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> customerService.updateCustomer(1L, new CustomerForm(), "\"1-0-0\""));
+        verify(customerRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void getCustomerByIdWithCurrentETagShouldNotConvertCustomer() {
+        when(customerRepository.findWithDebtRowsById(1L)).thenReturn(List.of(new CustomerWithDebtRow(1L,
+                "Customer 1", "Surname 1", "Country 1", null, 0L, 1L, BigDecimal.ONE, LocalDate.of(2022, 2, 1), 0L,
+                1L, "Euro", "EUR", "€")));
+        final String eTag = customerService.getCustomerById(1L, null).getETag();
+
+        VersionedData<CustomerData> result = customerService.getCustomerById(1L, eTag);
+        assertFalse(result.isModified());
+        verify(debtViewConverter, times(1)).convert(any(DebtView.class));
     }
 
     @Test
     public void updateCustomerWithWrongIdShouldReturnResourceNotFoundException() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> customerService.updateCustomer(1L, new CustomerForm()));
+        when(customerRepository.findWithDebtRowsById(any(Long.class))).thenReturn(List.of());
+        assertThrows(ResourceNotFoundException.class, () -> customerService.updateCustomer(1L, new CustomerForm(), null));
+    }
+
+    @Test
+    public void deleteCustomerShouldDeleteDebtsAndCustomerById() {
+        when(customerRepository.deleteCustomerById(1L)).thenReturn(1);
+        customerService.deleteCustomer(1L, null);
+        verify(customerDebtSummaryRepository).deleteSummariesByCustomerId(1L);
+        verify(debtRepository).deleteDebtsByCustomerId(1L);
+        verify(customerRepository).deleteCustomerById(1L);
+        verify(customerRepository, never()).findById(any());
     }
 
     @Test
-    public void deleteCustomerShouldCallRepositoryDeleteById() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.of(new Customer()));
-        customerService.deleteCustomer(1L);
-        verify(customerRepository).deleteById(any());
+    public void deleteCustomerWithStaleETagShouldReturnPreconditionFailedException() {
+        when(customerRepository.findWithDebtRowsById(1L)).thenReturn(List.of(new CustomerWithDebtRow(1L,
+                "Customer 1", "Surname 1", "Country 1", null, 2L, null, null, null, null, null, null, null, null)));
+
+        assertThrows(PreconditionFailedException.class, () -> customerService.deleteCustomer(1L, "\"1-0-0\""));
+        verify(debtRepository, never()).deleteDebtsByCustomerId(any());
     }
 
     @Test
     public void deleteCustomerWithWrongIdShouldReturnResourceNotFoundException() {
-        when(customerRepository.findById(any(Long.class))).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> customerService.deleteCustomer(1L));
+        when(customerRepository.deleteCustomerById(1L)).thenReturn(0);
+        assertThrows(ResourceNotFoundException.class, () -> customerService.deleteCustomer(1L, null));
+    }
+
+    @Test
+    public void getCustomerReferenceShouldNotLoadCustomer() {
+        Customer reference = new Customer();
+        when(customerRepository.existsById(1L)).thenReturn(true);
+        when(customerRepository.getById(1L)).thenReturn(reference);
+
+        assertEquals(reference, customerService.getCustomerReferenceOrThrow(1L));
+        verify(customerRepository, never()).findById(any());
+    }
+
+    @Test
+    public void getCustomerReferenceWithWrongIdShouldReturnResourceNotFoundException() {
+        when(customerRepository.existsById(1L)).thenReturn(false);
+        assertThrows(ResourceNotFoundException.class, () -> customerService.getCustomerReferenceOrThrow(1L));
+    }
+
+    private static CustomerSummaryView summaryView(Long id, Long version) {
+        return new SpelAwareProxyProjectionFactory().createProjection(CustomerSummaryView.class, Map.of(
+                "id", id, "name", "Customer " + id, "surname", "Surname " + id, "country", "Country " + id,
+                "email", "customer" + id + "@test.com", "version", version));
     }
 }
@@ -0,0 +1,96 @@
+package com.example.customerdebtservice.datagen;
+
+import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.services.CustomerService;
+import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataGeneratorIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DataGenerator dataGenerator;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DebtService debtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private static final int CUSTOMERS = 200;
+    private static final long DEBTS = 5000;
+
+    private DataGeneratorResult result;
+
+    /**
+     * Keeps the shared database small for the tests that run after this one
+     */
+    @AfterEach
+    public void deleteGeneratedRows() {
+        for (String table : List.of("customer_debt_summary", "debt")) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE customer_id BETWEEN ? AND ?",
+                    result.getFirstCustomerId(), result.getLastCustomerId());
+        }
+        jdbcTemplate.update("DELETE FROM customer WHERE id BETWEEN ? AND ?",
+                result.getFirstCustomerId(), result.getLastCustomerId());
+    }
+
+    @Test
+    public void generateShouldInsertSkewedDebtsWithTotals() {
+        result = dataGenerator.generate(new DataGeneratorOptions(CUSTOMERS, DEBTS, 1.0, 64, 7));
+
+        assertEquals(CUSTOMERS, result.getLastCustomerId() - result.getFirstCustomerId() + 1);
+        assertEquals(CUSTOMERS, count("SELECT COUNT(*) FROM customer WHERE id BETWEEN ? AND ?", result));
+        assertEquals(DEBTS, count("SELECT COUNT(*) FROM debt WHERE customer_id BETWEEN ? AND ?", result));
+        assertEquals(DEBTS, count("SELECT SUM(debt_count) FROM customer_debt_summary " +
+                "WHERE customer_id BETWEEN ? AND ?", result));
+        assertEquals(0, count("SELECT COUNT(*) FROM customer_debt_summary s WHERE s.customer_id BETWEEN ? AND ? " +
+                "AND s.total_amount <> (SELECT SUM(d.amount) FROM debt d " +
+                "WHERE d.customer_id = s.customer_id AND d.currency_id = s.currency_id)", result));
+        assertTrue(count("SELECT MAX(c) FROM (SELECT COUNT(*) c FROM debt WHERE customer_id BETWEEN ? AND ? " +
+                        "GROUP BY customer_id)", result) > DEBTS / 10,
+                "Top customer should own a large share of debts");
+
+        final String password = jdbcTemplate.queryForObject("SELECT password FROM customer WHERE id = ?",
+                String.class, result.getFirstCustomerId());
+        assertTrue(passwordEncoder.matches(DataGenerator.PASSWORD, password));
+    }
+
+    @Test
+    public void generatedIdsShouldNotCollideWithApplicationInserts() {
+        result = dataGenerator.generate(new DataGeneratorOptions(10, 120, 0.5, 16, 3));
+
+        final Long customerId = customerService.createCustomer(new CustomerForm("After", "Generator", "Latvia",
+                TestFixtures.uniqueEmail("after-generator"), TestFixtures.PASSWORD)).getId();
+        final Long debtId = debtService.createDebt(
+                new DebtForm(BigDecimal.TEN, "EUR", LocalDate.of(2022, 3, 1), customerId)).getId();
+
+        assertTrue(customerId > result.getLastCustomerId());
+        // Debts keep the IDs of the sequence block allocated before the generator ran, which are below the range
+        assertTrue(debtId < count("SELECT MIN(id) FROM debt WHERE customer_id BETWEEN ? AND ?", result)
+                || debtId > count("SELECT MAX(id) FROM debt WHERE customer_id BETWEEN ? AND ?", result));
+    }
+
+    private long count(String sql, DataGeneratorResult result) {
+        return jdbcTemplate.queryForObject(sql, Long.class, result.getFirstCustomerId(), result.getLastCustomerId());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.customerdebtservice.datagen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZipfDebtDistributionUnitTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0, 0.5, 1, 2})
+    public void splitShouldAssignExactlyAllDebts(double exponent) {
+        final int[] debts = ZipfDebtDistribution.split(1000, 12_345, exponent);
+
+        assertEquals(12_345, Arrays.stream(debts).asLongStream().sum());
+        for (int rank = 1; rank < debts.length; rank++) {
+            assertTrue(debts[rank - 1] + 1 >= debts[rank], "Lower rank should not own fewer debts, rank " + rank);
+        }
+    }
+
+    @Test
+    public void splitWithZeroExponentShouldBeEven() {
+        final int[] debts = ZipfDebtDistribution.split(4, 20, 0);
+
+        assertArrayEquals(new int[]{5, 5, 5, 5}, debts);
+    }
+
+    @Test
+    public void splitWithExponentOneShouldFollowHarmonicShares() {
+        final int[] debts = ZipfDebtDistribution.split(3, 110, 1);
+
+        // Shares 1 : 1/2 : 1/3 of 110 debts
+        assertArrayEquals(new int[]{60, 30, 20}, debts);
+    }
+
+    @Test
+    public void splitShuffledShouldKeepCountsAndBeReproducible() {
+        final int[] shuffled = ZipfDebtDistribution.splitShuffled(100, 5000, 1, new Random(1));
+        final int[] sorted = shuffled.clone();
+        Arrays.sort(sorted);
+        final int[] expected = ZipfDebtDistribution.split(100, 5000, 1);
+        Arrays.sort(expected);
+
+        assertArrayEquals(expected, sorted);
+        assertArrayEquals(shuffled, ZipfDebtDistribution.splitShuffled(100, 5000, 1, new Random(1)));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.RecordingStatementInspector;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.exceptions.InvalidAdjustmentException;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+public class DebtAdjustIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private CustomerDebtSummaryRepository customerDebtSummaryRepository;
+
+    @Autowired
+    private DebtService debtService;
+
+    private static final String DEBTS_URL = "/debts";
+
+    private Long customerId;
+    private Long currencyId;
+    private Long debtId;
+
+    @BeforeEach
+    public void init() throws Exception {
+        customerId = customerRepository.save(TestFixtures.customer("Adjust")).getId();
+        currencyId = currencyRepository.findCurrencyByCode("EUR").orElseThrow().getId();
+
+        // Created through the endpoint, so that the debt is counted in the totals
+        final String created = mockMvc.perform(post(DEBTS_URL)
+                        .content("{\"amount\": \"100.00\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", "
+                                + "\"customerId\": " + customerId + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        debtId = Long.valueOf(JsonPath.read(created, "$.id").toString());
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    public void adjustShouldChangeAmountWithSingleUpdate() throws Exception {
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"-25.50\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(74.5))
+                .andExpect(jsonPath("$.dueDate").value("2022-05-01"));
+
+        final List<String> updates = RecordingStatementInspector.statementsStartingWith("update debt ");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).toLowerCase().contains("amount=amount+?"), updates.get(0));
+        assertEquals(0, new BigDecimal("74.50").compareTo(totalAmount()));
+    }
+
+    @Test
+    public void adjustBelowZeroShouldReturnConflict() throws Exception {
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"-100.01\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, new BigDecimal("100").compareTo(debtRepository.findById(debtId).orElseThrow().getAmount()));
+        assertEquals(0, new BigDecimal("100").compareTo(totalAmount()));
+
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"-100\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(0));
+    }
+
+    @Test
+    public void adjustOfMissingDebtShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(DEBTS_URL + "/999999/adjust")
+                        .content("{\"delta\": \"1\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void zeroAdjustShouldReturnBadRequest() throws Exception {
+        final Long version = debtRepository.findById(debtId).orElseThrow().getVersion();
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"0.00\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+
+        assertTrue(RecordingStatementInspector.statementsStartingWith("update ").isEmpty());
+        assertEquals(version, debtRepository.findById(debtId).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void concurrentAdjustmentsShouldNotLoseUpdates() throws Exception {
+        final int threads = 4;
+        final int adjustmentsPerThread = 25;
+        final AtomicInteger rejected = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // Half of the threads pay, half of them add to the debt
+                final BigDecimal delta = i % 2 == 0 ? new BigDecimal("-1.25") : new BigDecimal("2.50");
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < adjustmentsPerThread; j++) {
+                        try {
+                            debtService.adjustDebt(debtId, delta);
+                        } catch (InvalidAdjustmentException ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 100 + 50 * -1.25 + 50 * 2.50, the amount never gets close to zero
+        final BigDecimal expected = new BigDecimal("162.50");
+        assertEquals(0, rejected.get());
+        assertEquals(0, expected.compareTo(debtRepository.findById(debtId).orElseThrow().getAmount()));
+        assertEquals(0, expected.compareTo(totalAmount()));
+    }
+
+    private BigDecimal totalAmount() {
+        return customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(customerId).stream()
+                .filter(summary -> summary.getCurrencyId().equals(currencyId))
+                .findFirst().orElseThrow().getTotalAmount();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares rows per second of importing debts one by one through POST /debts and in one POST /debts/batch.
+ * Excluded from the regular test run, execute with: ./mvnw test -Pbenchmark -Dbenchmark.rows=100000
+ */
+@Tag("benchmark")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:debt-batch-benchmark",
+        "logging.level.com.example.customerdebtservice=WARN"})
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class DebtBatchImportBenchmark {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 10_000);
+    private Long customerId;
+
+    @BeforeAll
+    public void setup() {
+        Customer customer = new Customer();
+        customer.setName("Benchmark");
+        customer.setSurname("Customer");
+        customer.setCountry("Latvia");
+        customer.setEmail("benchmark@test.com");
+        customer.setPassword("password");
+        customerId = customerRepository.save(customer).getId();
+    }
+
+    @Test
+    public void compareSingleRowAndBatchImport() throws Exception {
+        // Warm up both paths, so that the measurement doesn't include class loading and JIT
+        importOneByOne(rows / 10);
+        importInBatch(rows / 10);
+
+        final long singleNanos = importOneByOne(rows);
+        final long batchNanos = importInBatch(rows);
+
+        log.warn(String.format("Imported %d debts: POST /debts %.0f rows/sec, POST /debts/batch %.0f rows/sec",
+                rows, rowsPerSecond(singleNanos), rowsPerSecond(batchNanos)));
+    }
+
+    private long importOneByOne(int count) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            mockMvc.perform(post("/debts")
+                            .content(DebtBatchIntegrationTest.debtJson(String.valueOf(i), "EUR", "2022-03-01", customerId))
+                            .contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(status().isCreated());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long importInBatch(int count) throws Exception {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(DebtBatchIntegrationTest.debtJson(String.valueOf(i), "EUR", "2022-03-01", customerId))
+                    .append('\n');
+        }
+        final long start = System.nanoTime();
+        mockMvc.perform(post("/debts/batch").content(body.toString()).contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(count));
+        return System.nanoTime() - start;
+    }
+
+    private double rowsPerSecond(long nanos) {
+        return rows * 1_000_000_000d / nanos;
+    }
+}
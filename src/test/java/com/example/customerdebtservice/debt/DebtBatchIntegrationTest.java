@@ -0,0 +1,97 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DebtBatchIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    private static final String BATCH_URL = "/debts/batch";
+
+    private Long customerId;
+
+    @BeforeAll
+    public void setup() {
+        customerId = customerRepository.save(TestFixtures.customer("Batch")).getId();
+    }
+
+    @Test
+    public void createDebtsShouldCreateValidRowsAndRejectInvalidRows() throws Exception {
+        final long debtCount = debtRepository.count();
+        final String body = "[" +
+                debtJson("100.50", "EUR", "2022-03-01", customerId) + "," +
+                debtJson("-1", "EUR", "2022-03-01", customerId) + "," +
+                debtJson("20", "XXX", "2022-03-01", customerId) + "," +
+                debtJson("20", "USD", "2022-03-01", 999_999L) + "," +
+                "{\"amount\": \"20\", \"currency\": \"USD\", \"dueDate\": \"01.03.2022\"}," +
+                debtJson("30", "USD", "2022-03-02", customerId) + "]";
+
+        mockMvc.perform(post(BATCH_URL).content(body).contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.rows", hasSize(6)))
+                .andExpect(jsonPath("$.rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.rows[0].id").isNumber())
+                .andExpect(jsonPath("$.rows[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.rows[1].errors", hasItem("amount: Amount cannot be negative")))
+                .andExpect(jsonPath("$.rows[2].errors", hasItem("Cannot find currency for code: XXX")))
+                .andExpect(jsonPath("$.rows[3].errors", hasItem("Customer not found. ID: 999999")))
+                .andExpect(jsonPath("$.rows[4].status").value("REJECTED"))
+                .andExpect(jsonPath("$.rows[5].index").value(5))
+                .andExpect(jsonPath("$.rows[5].status").value("CREATED"));
+
+        assertEquals(debtCount + 2, debtRepository.count());
+    }
+
+    @Test
+    public void createDebtsShouldAcceptNdjson() throws Exception {
+        final int rows = 120;
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            body.append(debtJson(String.valueOf(i), "LVL", "2022-04-01", customerId)).append('\n');
+        }
+
+        mockMvc.perform(post(BATCH_URL).content(body.toString()).contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(rows))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    public void createDebtsWithMalformedJsonShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(BATCH_URL).content("[{\"amount\": ").contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+    }
+
+    static String debtJson(String amount, String currency, String dueDate, Long customerId) {
+        return String.format("{\"amount\": \"%s\", \"currency\": \"%s\", \"dueDate\": \"%s\", \"customerId\": %d}",
+                amount, currency, dueDate, customerId);
+    }
+}
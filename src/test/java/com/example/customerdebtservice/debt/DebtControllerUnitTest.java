@@ -1,10 +1,22 @@
 package com.example.customerdebtservice.debt;
 
 import com.example.customerdebtservice.currency.dto.CurrencyData;
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.batch.DebtBatchRow;
 import com.example.customerdebtservice.debt.controllers.DebtController;
+import com.example.customerdebtservice.debt.dto.DebtBatchResultData;
 import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.dto.DebtDeleteResultData;
+import com.example.customerdebtservice.debt.export.DebtExportWriter;
 import com.example.customerdebtservice.debt.forms.DebtForm;
 import com.example.customerdebtservice.debt.services.DebtService;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.exceptions.InvalidFilterException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -13,27 +25,39 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
+import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(DebtController.class)
@@ -46,6 +70,9 @@ public class DebtControllerUnitTest {
     @MockBean
     private DebtService debtService;
 
+    @MockBean
+    private CurrencyService currencyService;
+
     private static final String DEBTS_URL = "/debts";
     private static final ObjectMapper mapper = new ObjectMapper();
     private final DebtForm debtForm = new DebtForm();
@@ -67,6 +94,8 @@ public class DebtControllerUnitTest {
         debtData.setCurrency(new CurrencyData(1L, "Dollar", "USD", "$"));
         debtData.setCustomerId(1L);
         debtData.setDueDate(LocalDate.of(2022, 3, 2));
+
+        when(debtService.getDebts(any())).thenReturn(new SliceImpl<>(new ArrayList<>()));
     }
 
 
@@ -75,13 +104,34 @@ public class DebtControllerUnitTest {
         List<DebtData> debtDataList = new ArrayList<>();
         debtDataList.add(debtData);
 
-        when(debtService.getDebts(any())).thenReturn(debtDataList);
+        when(debtService.getDebts(any())).thenReturn(new SliceImpl<>(debtDataList));
 
         mockMvc.perform(get(DEBTS_URL))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(debtDataList)));
     }
 
+    @Test
+    public void getDebtsShouldReturnHasNextHeaderWithoutTotal() throws Exception {
+        when(debtService.getDebts(any())).thenReturn(new SliceImpl<>(List.of(debtData), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get(DEBTS_URL).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"))
+                .andExpect(header().doesNotExist(PaginationHeaders.TOTAL_COUNT));
+        verify(debtService, never()).countDebts();
+    }
+
+    @Test
+    public void getDebtsWithTotalShouldReturnTotalCountHeader() throws Exception {
+        when(debtService.countDebts()).thenReturn(42L);
+
+        mockMvc.perform(get(DEBTS_URL).param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "false"))
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, "42"));
+    }
+
     @Test
     public void getDebtsWithoutParametersShouldReturnDefaultPageParameters() throws Exception {
         final int pageNumber = 0;
@@ -154,18 +204,106 @@ public class DebtControllerUnitTest {
         assertEquals(PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).descending()), pageable);
     }
 
+    @Test
+    public void getDebtsWithCursorShouldReturnNextCursorHeader() throws Exception {
+        final String nextCursor = "MTA";
+        List<DebtData> debtDataList = new ArrayList<>();
+        debtDataList.add(debtData);
+
+        when(debtService.getDebtsAfter(eq(""), any())).thenReturn(new CursorPage<>(debtDataList, nextCursor));
+
+        mockMvc.perform(get(DEBTS_URL).param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(content().json(mapper.writeValueAsString(debtDataList)));
+    }
+
+    @Test
+    public void getDebtsWithCursorOnLastPageShouldNotReturnNextCursorHeader() throws Exception {
+        when(debtService.getDebtsAfter(eq("MTA"), any())).thenReturn(new CursorPage<>(new ArrayList<>(), null));
+
+        mockMvc.perform(get(DEBTS_URL).param("after", "MTA"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void getDebtsWithInvalidCursorShouldReturnBadRequest() throws Exception {
+        when(debtService.getDebtsAfter(eq("wrong"), any())).thenThrow(new InvalidPaginationException("wrong"));
+
+        mockMvc.perform(get(DEBTS_URL).param("after", "wrong"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportDebtsShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, DebtExportWriter.class).write(debtData);
+            invocation.getArgument(0, DebtExportWriter.class).write(debtData);
+            return null;
+        }).when(debtService).exportDebts(any());
+
+        MvcResult result = mockMvc.perform(get(DEBTS_URL + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String export = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(export.endsWith("\n"), "Every record including the last one should end with a newline");
+        final List<String> lines = export.lines().collect(Collectors.toList());
+        assertEquals(2, lines.size());
+        for (String line : lines) {
+            JSONAssert.assertEquals(mapper.writeValueAsString(debtData), line, false);
+        }
+    }
+
+    @Test
+    public void exportDebtsAsCsvShouldStreamHeaderAndRows() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, DebtExportWriter.class).write(debtData);
+            return null;
+        }).when(debtService).exportDebts(any());
+
+        MvcResult result = mockMvc.perform(get(DEBTS_URL + "/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,amount,dueDate,customerId,currency\n1,100,2022-03-02,1,USD\n"));
+    }
+
+    @Test
+    public void exportDebtsWithWrongFormatShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(DEBTS_URL + "/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getDebtsByIdShouldReturnDebtsData() throws Exception {
         final Long debtsId = 1L;
 
-        when(debtService.getDebtById(debtsId)).thenReturn(debtData);
+        when(debtService.getDebtById(debtsId, null)).thenReturn(new VersionedData<>("\"0\"", debtData));
 
         mockMvc.perform(get(DEBTS_URL + "/" + debtsId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
                 .andExpect(content().json(mapper.writeValueAsString(debtData)));
     }
 
+    @Test
+    public void getDebtByIdWithCurrentETagShouldReturnNotModified() throws Exception {
+        when(debtService.getDebtById(1L, "\"0\"")).thenReturn(VersionedData.notModified("\"0\""));
+
+        mockMvc.perform(get(DEBTS_URL + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void createDebtShouldReturnCreatedDebtData() throws Exception {
         when(debtService.createDebt(any(DebtForm.class))).thenReturn(debtData);
@@ -234,7 +372,7 @@ public class DebtControllerUnitTest {
     @Test
     public void updateDebtShouldReturnStatus200() throws Exception {
         final Long debtId = 1L;
-        when(debtService.updateDebt(debtId, debtForm)).thenReturn(debtData);
+        when(debtService.updateDebt(debtId, debtForm, null)).thenReturn(new VersionedData<>("\"1\"", debtData));
 
         mockMvc.perform(put(DEBTS_URL + "/" + debtId)
                         .content(mapper.writeValueAsString(debtForm))
@@ -242,10 +380,112 @@ public class DebtControllerUnitTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void patchDebtShouldPassMergePatchToService() throws Exception {
+        final Long debtId = 1L;
+        when(debtService.patchDebt(eq(debtId), any())).thenReturn(debtData);
+
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content("{\"dueDate\": \"2022-03-02\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueDate").value("2022-03-02"));
+        verify(debtService).patchDebt(debtId, mapper.readTree("{\"dueDate\": \"2022-03-02\"}"));
+    }
+
+    @Test
+    public void adjustDebtShouldPassDeltaToService() throws Exception {
+        final Long debtId = 1L;
+        when(debtService.adjustDebt(debtId, new BigDecimal("-12.34"))).thenReturn(debtData);
+
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"-12.34\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(debtId));
+    }
+
     @Test
     public void deleteDebtShouldReturnStatus200() throws Exception {
         final long debtId = 1L;
         mockMvc.perform(delete(DEBTS_URL + "/" + debtId))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void deleteDebtsShouldPassFilters() throws Exception {
+        when(debtService.deleteDebts(1L, LocalDate.of(2022, 3, 1))).thenReturn(new DebtDeleteResultData(3));
+
+        mockMvc.perform(delete(DEBTS_URL)
+                        .param("customerId", "1")
+                        .param("dueBefore", "2022-03-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3));
+    }
+
+    @Test
+    public void deleteDebtsWithoutFiltersShouldReturnBadRequest() throws Exception {
+        when(debtService.deleteDebts(null, null)).thenThrow(new InvalidFilterException("Filter is required"));
+
+        mockMvc.perform(delete(DEBTS_URL))
+                .andExpect(status().isBadRequest());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void createDebtsShouldReadEveryRow(String contentType) throws Exception {
+        final String row = mapper.writeValueAsString(debtForm);
+        final String body = MediaType.APPLICATION_JSON_VALUE.equals(contentType)
+                ? "[" + row + "," + row + "]"
+                : row + "\n" + row + "\n";
+        final List<DebtBatchRow> rows = new ArrayList<>();
+        doAnswer(invocation -> {
+            DebtBatchReader reader = invocation.getArgument(0);
+            for (DebtBatchRow batchRow = reader.read(); batchRow != null; batchRow = reader.read()) {
+                rows.add(batchRow);
+            }
+            return new DebtBatchResultData(rows.size(), 0, List.of());
+        }).when(debtService).createDebts(any(DebtBatchReader.class));
+
+        mockMvc.perform(post(DEBTS_URL + "/batch").content(body).contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+
+        assertEquals(2, rows.size());
+        assertEquals(0, rows.get(0).getIndex());
+        assertEquals(1, rows.get(1).getIndex());
+        assertEquals(debtForm, rows.get(1).getDebtForm());
+    }
+
+    @Test
+    public void createDebtsWithUnboundRowShouldReturnBindingError() throws Exception {
+        final List<DebtBatchRow> rows = new ArrayList<>();
+        doAnswer(invocation -> {
+            rows.add(((DebtBatchReader) invocation.getArgument(0)).read());
+            return new DebtBatchResultData();
+        }).when(debtService).createDebts(any(DebtBatchReader.class));
+
+        mockMvc.perform(post(DEBTS_URL + "/batch")
+                        .content("[{\"amount\":\"100\",\"dueDate\":\"02.03.2022\"}]")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        assertEquals(false, rows.get(0).isBound());
+    }
+
+    @Test
+    public void createDebtsWithMalformedJsonShouldReturnBadRequest() throws Exception {
+        doAnswer(invocation -> {
+            DebtBatchReader reader = invocation.getArgument(0);
+            while (reader.read() != null) {
+                // Read until malformed row
+            }
+            return new DebtBatchResultData();
+        }).when(debtService).createDebts(any(DebtBatchReader.class));
+
+        mockMvc.perform(post(DEBTS_URL + "/batch")
+                        .content("[" + mapper.writeValueAsString(debtForm) + ", {\"amount\": ]")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+    }
 }
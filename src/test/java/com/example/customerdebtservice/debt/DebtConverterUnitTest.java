@@ -1,8 +1,8 @@
 package com.example.customerdebtservice.debt;
 
-import com.example.customerdebtservice.currency.converters.CurrencyConverter;
 import com.example.customerdebtservice.currency.dto.CurrencyData;
 import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.customer.models.Customer;
 import com.example.customerdebtservice.debt.converters.DebtConverter;
 import com.example.customerdebtservice.debt.dto.DebtData;
@@ -17,13 +17,14 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class DebtConverterUnitTest {
     @Mock
-    private CurrencyConverter currencyConverter;
+    private CurrencyService currencyService;
 
     @InjectMocks
     private DebtConverter debtConverter;
@@ -39,7 +40,8 @@ public class DebtConverterUnitTest {
         customer.setId(10L);
         debt.setCustomer(customer);
 
-        when(currencyConverter.convert(any())).thenReturn(new CurrencyData());
+        CurrencyData currencyData = new CurrencyData(1L, "Dollar", "USD", "$");
+        when(currencyService.getCurrencyData(any())).thenReturn(currencyData);
 
         DebtData result = debtConverter.convert(debt);
 
@@ -48,5 +50,6 @@ public class DebtConverterUnitTest {
         assertEquals(debt.getAmount(), result.getAmount());
         assertEquals(debt.getDueDate(), result.getDueDate());
         assertEquals(debt.getCustomer().getId(), result.getCustomerId());
+        assertSame(currencyData, result.getCurrency());
     }
 }
@@ -0,0 +1,155 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards that debts are deleted without loading their customer and that bulk deletion is set-based
+ */
+@WithMockUser(roles = "USER")
+public class DebtDeleteIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String DEBTS_URL = "/debts";
+    private static final int DEBTS_PER_CUSTOMER = 10;
+
+    private Statistics statistics;
+    private Customer customer;
+    private Customer otherCustomer;
+
+    @BeforeEach
+    public void init() {
+        customer = customerRepository.save(customerWithDebts());
+        otherCustomer = customerRepository.save(customerWithDebts());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void deleteDebtShouldNotLoadCustomer() throws Exception {
+        final Long debtId = customer.getDebts().get(0).getId();
+        mockMvc.perform(delete(DEBTS_URL + "/" + debtId))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                "DELETE " + DEBTS_URL + "/{id} should not load customer of the debt");
+        assertEquals(1, statistics.getEntityStatistics(Debt.class.getName()).getLoadCount(),
+                "DELETE " + DEBTS_URL + "/{id} should load only the deleted debt");
+        assertFalse(debtRepository.existsById(debtId));
+        assertEquals(DEBTS_PER_CUSTOMER - 1, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(otherCustomer));
+    }
+
+    @Test
+    public void deleteNonExistingDebtShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(DEBTS_URL + "/" + 999_999))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(otherCustomer));
+    }
+
+    @Test
+    public void deleteDebtsByCustomerAndDueDateShouldBeSetBased() throws Exception {
+        mockMvc.perform(delete(DEBTS_URL)
+                        .param("customerId", String.valueOf(customer.getId()))
+                        .param("dueBefore", "1998-03-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3));
+
+        // Affected totals are then written with JDBC batches, which Hibernate statistics don't count
+        assertEquals(2, statistics.getPrepareStatementCount(),
+                "DELETE " + DEBTS_URL + " should aggregate and delete debts with one statement each");
+        assertEquals(DEBTS_PER_CUSTOMER - 3, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(otherCustomer));
+    }
+
+    @Test
+    public void deleteDebtsByCustomerShouldDeleteAllDebtsOfCustomer() throws Exception {
+        mockMvc.perform(delete(DEBTS_URL).param("customerId", String.valueOf(customer.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(DEBTS_PER_CUSTOMER));
+
+        assertEquals(0, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(otherCustomer));
+    }
+
+    @Test
+    public void deleteDebtsByDueDateShouldDeleteDebtsOfEveryCustomer() throws Exception {
+        // Debts left behind by other tests in the shared database are deleted as well
+        final Long due = jdbcTemplate.queryForObject("select count(*) from debt where due_date < '1998-03-02'",
+                Long.class);
+        mockMvc.perform(delete(DEBTS_URL).param("dueBefore", "1998-03-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(due));
+
+        assertEquals(DEBTS_PER_CUSTOMER - 1, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER - 1, debtCount(otherCustomer));
+    }
+
+    @Test
+    public void deleteDebtsWithoutFiltersShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete(DEBTS_URL))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(customer));
+        assertEquals(DEBTS_PER_CUSTOMER, debtCount(otherCustomer));
+    }
+
+    /**
+     * Debts are due long before the debts of other tests, which deleting by due date alone would remove
+     */
+    private Customer customerWithDebts() {
+        Customer customer = TestFixtures.customer("Delete");
+        for (int i = 0; i < DEBTS_PER_CUSTOMER; i++) {
+            customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(i + 1), LocalDate.of(1998, 3, i + 1),
+                    currencyRepository.findCurrencyByCode("EUR").orElseThrow()));
+        }
+        return customer;
+    }
+
+    private int debtCount(Customer customer) {
+        return debtRepository.findIdsByCustomerId(customer.getId(), Pageable.unpaged()).size();
+    }
+}
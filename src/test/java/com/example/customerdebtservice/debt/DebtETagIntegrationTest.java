@@ -0,0 +1,155 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+public class DebtETagIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private DebtViewConverter debtViewConverter;
+
+    private static final String DEBTS_URL = "/debts";
+
+    private Long customerId;
+    private Long debtId;
+
+    @BeforeEach
+    public void init() throws Exception {
+        customerId = customerRepository.save(TestFixtures.customer("ETag")).getId();
+
+        final String created = mockMvc.perform(post(DEBTS_URL)
+                        .content(debtJson("100.00"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        debtId = JsonPath.parse(created).read("$.id", Long.class);
+    }
+
+    @Test
+    public void getDebtWithCurrentETagShouldReturnNotModifiedWithoutConvertingDebt() throws Exception {
+        final String eTag = getETag();
+
+        clearInvocations(debtViewConverter);
+        mockMvc.perform(get(DEBTS_URL + "/" + debtId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        verify(debtViewConverter, never()).convert(any(DebtView.class));
+    }
+
+    @Test
+    public void updateDebtShouldChangeETag() throws Exception {
+        final String eTag = getETag();
+
+        final String updatedETag = mockMvc.perform(put(DEBTS_URL + "/" + debtId)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .content(debtJson("90.00"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(eTag, updatedETag);
+        assertEquals(updatedETag, getETag(), "PUT should return the ETag of the stored version");
+        mockMvc.perform(get(DEBTS_URL + "/" + debtId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(90.00));
+    }
+
+    @Test
+    public void adjustDebtShouldChangeETag() throws Exception {
+        final String eTag = getETag();
+
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"-10\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        assertNotEquals(eTag, getETag());
+    }
+
+    @Test
+    public void updateDebtWithStaleETagShouldReturnPreconditionFailed() throws Exception {
+        final String staleETag = getETag();
+        mockMvc.perform(put(DEBTS_URL + "/" + debtId)
+                        .content(debtJson("90.00"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put(DEBTS_URL + "/" + debtId)
+                        .header(HttpHeaders.IF_MATCH, staleETag)
+                        .content(debtJson("80.00"))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals(0, new BigDecimal("90.00").compareTo(debtRepository.findById(debtId).orElseThrow().getAmount()),
+                "Update with stale ETag should not overwrite the newer version");
+    }
+
+    @Test
+    public void deleteDebtWithStaleETagShouldReturnPreconditionFailed() throws Exception {
+        final String staleETag = getETag();
+        mockMvc.perform(post(DEBTS_URL + "/" + debtId + "/adjust")
+                        .content("{\"delta\": \"5\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete(DEBTS_URL + "/" + debtId).header(HttpHeaders.IF_MATCH, staleETag))
+                .andExpect(status().isPreconditionFailed());
+        assertTrue(debtRepository.existsById(debtId));
+
+        mockMvc.perform(delete(DEBTS_URL + "/" + debtId).header(HttpHeaders.IF_MATCH, getETag()))
+                .andExpect(status().isOk());
+        assertTrue(debtRepository.findById(debtId).isEmpty());
+    }
+
+    private String getETag() throws Exception {
+        return mockMvc.perform(get(DEBTS_URL + "/" + debtId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private String debtJson(String amount) {
+        return "{\"amount\": \"" + amount + "\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", \"customerId\": "
+                + customerId + "}";
+    }
+}
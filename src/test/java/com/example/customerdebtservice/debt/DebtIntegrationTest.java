@@ -2,6 +2,8 @@ package com.example.customerdebtservice.debt;
 
 import com.example.customerdebtservice.customer.forms.CustomerForm;
 import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -10,8 +12,6 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -25,11 +25,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@AutoConfigureMockMvc
-@SpringBootTest
 @WithMockUser(roles = "USER")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
-public class DebtIntegrationTest {
+public class DebtIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired
     private MockMvc mockMvc;
@@ -73,7 +71,7 @@ public class DebtIntegrationTest {
         String surname = "surname";
         String password = "password";
         String country = "country";
-        String email = "email@email.com";
+        String email = TestFixtures.uniqueEmail("debt");
         customerForm.setName(name);
         customerForm.setSurname(surname);
         customerForm.setPassword(password);
@@ -325,7 +323,6 @@ public class DebtIntegrationTest {
     @Test
     @Order(23)
     public void afterDeletingDebtGetCustomerReturnStatus200() throws Exception {
-        final long customerId = correctJsonDebtData.getLong("id");
         mockMvc.perform(get("/customers/" + customerId))
                 .andDo(print())
                 .andExpect(status().isOk());
@@ -343,7 +340,6 @@ public class DebtIntegrationTest {
     @Test
     @Order(25)
     public void afterDeletingDebtGetCustomerReturnJson() throws Exception {
-        final long customerId = correctJsonDebtData.getLong("id");
         mockMvc.perform(get("/customers/" + customerId))
                 .andDo(print())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
@@ -0,0 +1,112 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.function.Consumer;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares per-page latency of counted pages (Page) and uncounted pages (Slice) at several depths of a large table.
+ * Excluded from the regular test run, execute with: ./mvnw test -Pbenchmark -Dbenchmark.rows=1000000
+ */
+@Tag("benchmark")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:debt-pagination-benchmark",
+        "logging.level.com.example.customerdebtservice=WARN"})
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class DebtPaginationBenchmark {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_CHUNK = 10_000;
+    private static final int ITERATIONS = 50;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 100_000);
+    private Long customerId;
+
+    @BeforeAll
+    public void setup() {
+        Customer customer = new Customer();
+        customer.setName("Benchmark");
+        customer.setSurname("Customer");
+        customer.setCountry("Latvia");
+        customer.setEmail("pagination-benchmark@test.com");
+        customer.setPassword("password");
+        customerId = customerRepository.save(customer).getId();
+    }
+
+    @Test
+    public void comparePageAndSliceLatency() throws Exception {
+        seedDebts();
+        final int lastPage = rows / PAGE_SIZE - 1;
+        for (int page : new int[]{0, lastPage / 2, lastPage}) {
+            final Pageable pageable = PageRequest.of(page, PAGE_SIZE);
+            // Warm up both paths, so that the measurement doesn't include class loading and JIT
+            measure(ITERATIONS, pageable, debtRepository::findAll);
+            measure(ITERATIONS, pageable, debtRepository::findAllBy);
+
+            final double pageMillis = measure(ITERATIONS, pageable, debtRepository::findAll);
+            final double sliceMillis = measure(ITERATIONS, pageable, debtRepository::findAllBy);
+            log.warn(String.format("%d debts, page %d: Page %.2f ms, Slice %.2f ms", rows, page, pageMillis,
+                    sliceMillis));
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mockMvc.perform(get("/debts").param("page", String.valueOf(lastPage)).param("withTotal", "true"))
+                    .andExpect(status().isOk());
+        }
+        log.warn(String.format("%d debts, GET /debts?withTotal=true on page %d: %.2f ms", rows, lastPage,
+                (System.nanoTime() - start) / 1_000_000d / ITERATIONS));
+    }
+
+    private double measure(int iterations, Pageable pageable, Consumer<Pageable> query) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            query.accept(pageable);
+        }
+        return (System.nanoTime() - start) / 1_000_000d / iterations;
+    }
+
+    private void seedDebts() throws Exception {
+        for (int seeded = 0; seeded < rows; seeded += SEED_CHUNK) {
+            final StringBuilder body = new StringBuilder();
+            for (int i = seeded; i < Math.min(rows, seeded + SEED_CHUNK); i++) {
+                body.append(DebtBatchIntegrationTest.debtJson(String.valueOf(i % 1000 + 1), "EUR", "2022-03-01",
+                        customerId)).append('\n');
+            }
+            mockMvc.perform(post("/debts/batch").content(body.toString())
+                            .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                    .andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.RecordingStatementInspector;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.patch.JsonMergePatch;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+public class DebtPatchIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String DEBTS_URL = "/debts";
+
+    private Statistics statistics;
+    private Long customerId;
+    private Long debtId;
+
+    @BeforeEach
+    public void init() {
+        final Customer customer = customerRepository.save(TestFixtures.customer("Patch"));
+        customerId = customer.getId();
+        debtId = debtRepository.save(TestFixtures.debt(customer, new BigDecimal("10.00"), LocalDate.of(2022, 3, 1),
+                currencyRepository.findCurrencyByCode("EUR").orElseThrow())).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    public void patchDueDateShouldUpdateOnlyDueDateColumn() throws Exception {
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content("{\"dueDate\": \"2022-06-01\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueDate").value("2022-06-01"))
+                .andExpect(jsonPath("$.amount").value(10.0))
+                .andExpect(jsonPath("$.currency.code").value("EUR"))
+                .andExpect(jsonPath("$.customerId").value(customerId));
+
+        final List<String> updates = RecordingStatementInspector.statementsStartingWith("update debt ");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).matches("(?i)update debt set due_date=\\?, version=\\? "
+                + "where id=\\? and version=\\?"), updates.get(0));
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                "PATCH " + DEBTS_URL + "/{id} should not load the customer");
+        assertEquals(LocalDate.of(2022, 6, 1), debtRepository.findById(debtId).orElseThrow().getDueDate());
+    }
+
+    @Test
+    public void patchDueDateOfDebtWithoutCustomerShouldKeepItWithoutCustomer() throws Exception {
+        final Long withoutCustomerId = debtRepository.save(TestFixtures.debt(null, new BigDecimal("5.00"),
+                LocalDate.of(2022, 3, 1), currencyRepository.findCurrencyByCode("EUR").orElseThrow())).getId();
+
+        mockMvc.perform(patch(DEBTS_URL + "/" + withoutCustomerId)
+                        .content("{\"dueDate\": \"2022-06-01\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueDate").value("2022-06-01"))
+                .andExpect(jsonPath("$.customerId").doesNotExist());
+
+        final Debt patched = debtRepository.findById(withoutCustomerId).orElseThrow();
+        assertEquals(LocalDate.of(2022, 6, 1), patched.getDueDate());
+        assertNull(patched.getCustomer());
+    }
+
+    @Test
+    public void patchAmountShouldUpdateOnlyAmountColumn() throws Exception {
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content("{\"amount\": \"25.50\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(25.5))
+                .andExpect(jsonPath("$.dueDate").value("2022-03-01"));
+
+        final List<String> updates = RecordingStatementInspector.statementsStartingWith("update debt ");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).matches("(?i)update debt set amount=\\?, version=\\? "
+                + "where id=\\? and version=\\?"), updates.get(0));
+    }
+
+    @Test
+    public void patchWithUnchangedValuesShouldNotUpdateDebt() throws Exception {
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content("{\"amount\": \"10\", \"currency\": \"EUR\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getUpdateCount());
+        assertTrue(RecordingStatementInspector.statementsStartingWith("update customer_debt_summary").isEmpty());
+    }
+
+    @Test
+    public void patchCurrencyAndCustomerShouldMoveDebt() throws Exception {
+        final Long otherId = customerRepository.save(TestFixtures.customer("Other")).getId();
+
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content("{\"currency\": \"USD\", \"customerId\": " + otherId + "}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currency.code").value("USD"))
+                .andExpect(jsonPath("$.customerId").value(otherId));
+
+        final List<String> updates = RecordingStatementInspector.statementsStartingWith("update debt ");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).matches("(?i)update debt set currency_id=\\?, customer_id=\\?, version=\\? "
+                        + "where id=\\? and version=\\?"),
+                updates.get(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"amount\": null}", "{\"amount\": \"-1\"}", "{\"currency\": \"EU\"}",
+            "{\"dueDate\": \"not a date\"}", "[]", "{\"currency\": \"XXX\"}", "{\"customerId\": 999999}"})
+    public void invalidPatchShouldReturnBadRequest(String patch) throws Exception {
+        mockMvc.perform(patch(DEBTS_URL + "/" + debtId)
+                        .content(patch)
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getUpdateCount());
+    }
+
+    @Test
+    public void patchOfMissingDebtShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(patch(DEBTS_URL + "/999999")
+                        .content("{\"amount\": \"1\"}")
+                        .contentType(JsonMergePatch.MEDIA_TYPE))
+                .andExpect(status().isBadRequest());
+    }
+}
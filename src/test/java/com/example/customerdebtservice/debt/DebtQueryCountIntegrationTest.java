@@ -0,0 +1,244 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.PaginationHeaders;
+import com.example.customerdebtservice.shared.pagination.SeekCursor;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements issued per debt read endpoint,
+ * so that customers and currencies of the returned debts are not loaded one by one
+ */
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DebtQueryCountIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final String DEBTS_URL = "/debts";
+    private static final int CUSTOMER_COUNT = 25;
+    private static final int DEBTS_PER_CUSTOMER = 2;
+    private static final int PAGE_SIZE = 20;
+    // Other tests add debts to the shared database, pages start with the debts seeded here
+    private static final String NEWEST_FIRST = "id,desc";
+    // Seeded debts are due after the debts of other tests, so that cursors by due date can start right before them
+    private static final LocalDate DUE_DATE = LocalDate.of(2100, 3, 1);
+
+    private Statistics statistics;
+    private Long firstDebtId;
+    private Long debtId;
+    private Long customerId;
+
+    @BeforeAll
+    public void setup() {
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            Customer customer = TestFixtures.customer("Query-count");
+            for (int j = 0; j < DEBTS_PER_CUSTOMER; j++) {
+                customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(j + 1), DUE_DATE.plusDays(j),
+                        currencyRepository.findCurrencyByCode(j % 2 == 0 ? "EUR" : "LVL").orElseThrow()));
+            }
+            Customer saved = customerRepository.save(customer);
+            debtId = saved.getDebts().get(0).getId();
+            customerId = saved.getId();
+            if (i == 0) {
+                firstDebtId = debtId;
+            }
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    public void init() {
+        statistics.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    public void getDebtsShouldIssueConstantNumberOfStatements(int pageSize) throws Exception {
+        mockMvc.perform(get(DEBTS_URL).param("size", String.valueOf(pageSize)).param("sort", NEWEST_FIRST))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(pageSize))
+                .andExpect(jsonPath("$[0].customerId").exists())
+                .andExpect(jsonPath("$[0].currency.code").exists())
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "true"));
+
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET " + DEBTS_URL + " should fetch debts with currencies without counting them");
+    }
+
+    @Test
+    public void getDebtsOnLastPageShouldNotHaveNextPage() throws Exception {
+        final long count = debtRepository.count();
+        final long lastPage = (count - 1) / PAGE_SIZE;
+        mockMvc.perform(get(DEBTS_URL).param("size", String.valueOf(PAGE_SIZE)).param("page", String.valueOf(lastPage)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(count - lastPage * PAGE_SIZE))
+                .andExpect(header().string(PaginationHeaders.HAS_NEXT, "false"));
+    }
+
+    @Test
+    public void getDebtsWithTotalShouldCountOnlyOncePerTtl() throws Exception {
+        final String total = String.valueOf(debtRepository.count());
+        mockMvc.perform(get(DEBTS_URL).param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, total));
+
+        statistics.clear();
+        mockMvc.perform(get(DEBTS_URL).param("withTotal", "true").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationHeaders.TOTAL_COUNT, total));
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET " + DEBTS_URL + " with total should reuse the cached count");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"id", "dueDate"})
+    public void getDebtsWithCursorShouldIssueSingleStatementPerPage(String sort) throws Exception {
+        final int pageSize = 7;
+        final Set<Long> debtIds = new HashSet<>();
+        String cursor = (sort.equals("id") ? SeekCursor.ofId(firstDebtId - 1)
+                : SeekCursor.ofKeyAndId(DUE_DATE.minusDays(1).toString(), 0L)).encode();
+        int pages = 0;
+        while (Objects.nonNull(cursor)) {
+            statistics.clear();
+            MvcResult result = mockMvc.perform(get(DEBTS_URL)
+                            .param("after", cursor)
+                            .param("size", String.valueOf(pageSize))
+                            .param("sort", sort))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertEquals(1, statistics.getPrepareStatementCount(),
+                    "GET " + DEBTS_URL + " with cursor should not issue count query");
+
+            List<Integer> ids = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+            ids.forEach(id -> debtIds.add(id.longValue()));
+            cursor = result.getResponse().getHeader(CursorPage.NEXT_CURSOR_HEADER);
+            pages++;
+        }
+        assertEquals(CUSTOMER_COUNT * DEBTS_PER_CUSTOMER, debtIds.size(), "Every debt should be returned exactly once");
+        assertEquals((CUSTOMER_COUNT * DEBTS_PER_CUSTOMER + pageSize - 1) / pageSize, pages);
+    }
+
+    @Test
+    public void exportDebtsShouldStreamAllDebtsWithSingleStatement() throws Exception {
+        final long count = debtRepository.count();
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get(DEBTS_URL + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String export = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(count, export.lines().count(), "Every debt should be exported");
+        assertTrue(export.endsWith("\n"), "Last record should end with a newline");
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET " + DEBTS_URL + "/export should stream debts with currencies in one statement");
+    }
+
+    @Test
+    public void getDebtByIdShouldIssueSingleStatement() throws Exception {
+        mockMvc.perform(get(DEBTS_URL + "/" + debtId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId").exists())
+                .andExpect(jsonPath("$.currency.code").exists());
+
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET " + DEBTS_URL + "/{id} should fetch debt and currency in one statement");
+    }
+
+    @Test
+    public void createDebtShouldNotLoadCustomerOrItsDebts() throws Exception {
+        MvcResult result = mockMvc.perform(post(DEBTS_URL)
+                        .content(debtJson(customerId))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.customerId").value(customerId))
+                .andReturn();
+
+        assertEquals(0, statistics.getEntityLoadCount(), "POST " + DEBTS_URL + " should only reference the customer");
+        assertEquals(1, statistics.getEntityStatistics(Debt.class.getName()).getInsertCount());
+
+        // Keep the number of debts constant for the other tests
+        Integer createdId = JsonPath.parse(result.getResponse().getContentAsString()).read("$.id");
+        debtRepository.deleteById(createdId.longValue());
+    }
+
+    @Test
+    public void updateDebtShouldNotLoadCustomerOrItsDebts() throws Exception {
+        mockMvc.perform(put(DEBTS_URL + "/" + debtId)
+                        .content(debtJson(customerId))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                "PUT " + DEBTS_URL + "/{id} should only reference the customer");
+    }
+
+    @Test
+    public void createDebtForMissingCustomerShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(DEBTS_URL)
+                        .content(debtJson(999_999L))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, statistics.getEntityStatistics(Debt.class.getName()).getInsertCount());
+    }
+
+    private String debtJson(Long customerId) {
+        return "{\"amount\": \"10\", \"currency\": \"EUR\", \"dueDate\": \"" + DUE_DATE + "\", \"customerId\": "
+                + customerId + "}";
+    }
+}
@@ -5,25 +5,41 @@ import com.example.customerdebtservice.currency.models.Currency;
 import com.example.customerdebtservice.currency.services.CurrencyService;
 import com.example.customerdebtservice.customer.models.Customer;
 import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.customer.services.CustomerDebtSummaryService;
 import com.example.customerdebtservice.customer.services.CustomerService;
 import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
 import com.example.customerdebtservice.debt.dto.DebtData;
+import com.example.customerdebtservice.debt.dto.DebtDeleteResultData;
+import com.example.customerdebtservice.debt.export.DebtExportWriter;
 import com.example.customerdebtservice.debt.forms.DebtForm;
 import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.projections.DebtTotalView;
+import com.example.customerdebtservice.debt.projections.DebtView;
 import com.example.customerdebtservice.debt.repositories.DebtRepository;
 import com.example.customerdebtservice.debt.services.impl.DebtServiceImpl;
+import com.example.customerdebtservice.shared.etag.VersionedData;
+import com.example.customerdebtservice.shared.exceptions.InvalidAdjustmentException;
+import com.example.customerdebtservice.shared.exceptions.InvalidFilterException;
+import com.example.customerdebtservice.shared.exceptions.InvalidPaginationException;
+import com.example.customerdebtservice.shared.exceptions.PreconditionFailedException;
 import com.example.customerdebtservice.shared.exceptions.ResourceNotFoundException;
+import com.example.customerdebtservice.shared.pagination.CursorPage;
+import com.example.customerdebtservice.shared.pagination.SeekCursor;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -31,8 +47,15 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +66,9 @@ public class DebtServiceUnitTest {
     @Mock
     private DebtConverter debtConverter;
 
+    @Mock
+    private DebtViewConverter debtViewConverter;
+
     @Mock
     private CustomerService customerService;
 
@@ -52,10 +78,14 @@ public class DebtServiceUnitTest {
     @Mock
     private CurrencyService currencyService;
 
+    @Mock
+    private CustomerDebtSummaryService customerDebtSummaryService;
+
     @InjectMocks
     private DebtServiceImpl debtService;
 
     private static final List<Debt> debts = new ArrayList<>();
+    private static final List<DebtView> debtViews = new ArrayList<>();
     private static final List<DebtData> expectedDebtDatalist = new ArrayList<>();
 
     @BeforeAll
@@ -68,12 +98,14 @@ public class DebtServiceUnitTest {
             debt.setCurrency(new Currency());
             debt.setCustomer(new Customer());
             debts.add(debt);
+            debtViews.add(new DebtView(i, new BigDecimal(i), LocalDate.of(2022, 2, (int) i), i, 0L, 1L, "Euro", "EUR",
+                    "€"));
 
             DebtData debtData = new DebtData();
             debtData.setId(i);
             debtData.setAmount(new BigDecimal(i));
             debtData.setDueDate(LocalDate.of(2022, 2, (int) i));
-            debtData.setCurrency(new CurrencyData());
+            debtData.setCurrency(new CurrencyData(i, "Euro", "EUR", "€"));
             debtData.setCustomerId(i);
             expectedDebtDatalist.add(debtData);
         }
@@ -81,21 +113,34 @@ public class DebtServiceUnitTest {
 
     @Test
     public void getAllDebtsShouldReturnDebtDataList() {
-        Page<Debt> debtPage = new PageImpl<>(debts);
         Pageable pageable = PageRequest.of(0, 20);
-        when(debtRepository.findAll(pageable)).thenReturn(debtPage);
-        when(debtConverter.convert(any(Debt.class))).thenReturn(expectedDebtDatalist.get(0));
+        Slice<DebtView> debtSlice = new SliceImpl<>(debtViews, pageable, true);
+        when(debtRepository.findAllBy(pageable)).thenReturn(debtSlice);
+        when(debtViewConverter.convert(any(DebtView.class))).thenReturn(expectedDebtDatalist.get(0));
 
-        List<DebtData> result = debtService.getDebts(pageable);
-        assertEquals(result.size(), debts.size(),
+        Slice<DebtData> result = debtService.getDebts(pageable);
+        assertEquals(result.getNumberOfElements(), debts.size(),
                 "Size of initial list of debts doesn't equal to the list returned by service");
+        assertTrue(result.hasNext());
+        verify(debtRepository, never()).count();
 
     }
 
+    @Test
+    public void exportDebtsShouldWriteEveryDebt() throws IOException {
+        DebtExportWriter writer = mock(DebtExportWriter.class);
+        when(debtRepository.streamAll()).thenReturn(debtViews.stream());
+        when(debtViewConverter.convert(any(DebtView.class))).thenReturn(expectedDebtDatalist.get(0));
+
+        debtService.exportDebts(writer);
+        verify(writer, times(debts.size())).write(any(DebtData.class));
+        verify(writer).flush();
+    }
+
     @Test
     public void getDebtByIdShouldReturnDebt() {
-        when(debtRepository.findById(any(Long.class))).thenReturn(Optional.ofNullable(debts.get(0)));
-        when(debtConverter.convert(any(Debt.class))).thenReturn(expectedDebtDatalist.get(0));
+        when(debtRepository.findViewById(any(Long.class))).thenReturn(Optional.of(debtViews.get(0)));
+        when(debtViewConverter.convert(any(DebtView.class))).thenReturn(expectedDebtDatalist.get(0));
 
         DebtData result = debtService.getDebtById(1L);
         assertEquals(result.getId(), expectedDebtDatalist.get(0).getId());
@@ -107,7 +152,7 @@ public class DebtServiceUnitTest {
 
     @Test
     public void getDebtByIdWithWrongIdShouldReturnResourceNotFoundException() {
-        when(debtRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(debtRepository.findViewById(any(Long.class))).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> debtService.getDebtById(1L));
     }
 
@@ -123,32 +168,191 @@ public class DebtServiceUnitTest {
     @Test
     public void updateDebtShouldReturnUpdatedDebtData() {
         when(debtRepository.findById(any(Long.class))).thenReturn(Optional.of(new Debt()));
-        when(debtRepository.save(any(Debt.class))).thenReturn(debts.get(0));
+        when(debtRepository.saveAndFlush(any(Debt.class))).thenReturn(debts.get(0));
         when(debtConverter.convert(any(Debt.class))).thenReturn(expectedDebtDatalist.get(0));
 
-        DebtData result = debtService.updateDebt(1L, new DebtForm());
-        assertEquals(expectedDebtDatalist.get(0), result);
+        VersionedData<DebtData> result = debtService.updateDebt(1L, new DebtForm(), null);
+        assertEquals(expectedDebtDatalist.get(0), result.getContent());
+    }
+
+    @Test
+    public void getDebtByIdWithCurrentETagShouldNotConvertDebt() {
+        DebtView debt = new DebtView(1L, BigDecimal.ONE, LocalDate.of(2022, 2, 1), 1L, 3L, 1L, "Euro", "EUR", "€");
+        when(debtRepository.findViewById(1L)).thenReturn(Optional.of(debt));
+
+        VersionedData<DebtData> result = debtService.getDebtById(1L, "W/\"3\"");
+        assertFalse(result.isModified());
+        assertEquals("\"3\"", result.getETag());
+        verify(debtViewConverter, never()).convert(any(DebtView.class));
+    }
+
+    @Test
+    public void updateDebtWithStaleETagShouldReturnPreconditionFailedException() {
+        Debt debt = new Debt();
+        debt.setVersion(3L);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(debt));
+
+        assertThrows(PreconditionFailedException.class, () -> debtService.updateDebt(1L, new DebtForm(), "\"2\""));
+        verify(debtRepository, never()).saveAndFlush(any());
     }
 
     @Test
     public void updateDebtWithWrongIdShouldReturnResourceNotFoundException() {
         when(debtRepository.findById(any(Long.class))).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> debtService.updateDebt(1L, new DebtForm()));
+        assertThrows(ResourceNotFoundException.class, () -> debtService.updateDebt(1L, new DebtForm(), null));
     }
 
     @Test
-    public void deleteDebtShouldCallCustomerRepositorySave() {
+    public void deleteDebtShouldDeleteReadVersionAndRemoveDebtFromTotals() {
         Customer customer = new Customer();
-        customer.setId(1L);
-        customer.setDebts(debts);
-        when(debtRepository.findById(any(Long.class))).thenReturn(Optional.of(debts.get(1)));
-        when(customerRepository.save(any(Customer.class))).thenReturn(customer);
-        debtService.deleteDebt(1L);
+        customer.setId(3L);
+        Debt debt = new Debt(1L, new BigDecimal("10"), LocalDate.of(2022, 3, 1), customer,
+                new Currency(2L, "Euro", "EUR", "€"), 4L);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(debt));
+        when(debtRepository.deleteDebtByIdAndVersion(1L, 4L)).thenReturn(1);
+        debtService.deleteDebt(1L, null);
+        verify(debtRepository).deleteDebtByIdAndVersion(1L, 4L);
+        verify(customerDebtSummaryService).removeDebt(3L, 2L, new BigDecimal("10"), LocalDate.of(2022, 3, 1));
+    }
+
+    @Test
+    public void deleteDebtModifiedConcurrentlyWithoutIfMatchShouldReturnOptimisticLockingFailure() {
+        Debt debt = new Debt();
+        debt.setVersion(3L);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(debt));
+        when(debtRepository.deleteDebtByIdAndVersion(1L, 3L)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> debtService.deleteDebt(1L, null));
+        verify(customerDebtSummaryService, never()).removeDebt(any(), any(), any(), any());
+    }
+
+    @Test
+    public void deleteDebtModifiedAfterReadShouldReturnPreconditionFailedException() {
+        Debt debt = new Debt();
+        debt.setVersion(3L);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(debt));
+        when(debtRepository.deleteDebtByIdAndVersion(1L, 3L)).thenReturn(0);
+
+        assertThrows(PreconditionFailedException.class, () -> debtService.deleteDebt(1L, "\"3\""));
+        verify(customerDebtSummaryService, never()).removeDebt(any(), any(), any(), any());
     }
 
     @Test
     public void deleteCustomerWithWrongIdShouldReturnResourceNotFoundException() {
-        when(debtRepository.findById(any(Long.class))).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> debtService.deleteDebt(1L));
+        when(debtRepository.findById(1L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> debtService.deleteDebt(1L, null));
+    }
+
+    @Test
+    public void adjustDebtShouldAdjustTotalsByDelta() {
+        Customer customer = new Customer();
+        customer.setId(3L);
+        Debt debt = new Debt(1L, new BigDecimal("7.50"), LocalDate.of(2022, 3, 1), customer,
+                new Currency(2L, "Euro", "EUR", "€"), null);
+        when(debtRepository.adjustAmount(1L, new BigDecimal("-2.50"))).thenReturn(1);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(debt));
+
+        debtService.adjustDebt(1L, new BigDecimal("-2.50"));
+        verify(customerDebtSummaryService).adjustAmount(3L, 2L, new BigDecimal("-2.50"));
+    }
+
+    @Test
+    public void adjustDebtBelowZeroShouldReturnInvalidAdjustmentException() {
+        when(debtRepository.adjustAmount(1L, new BigDecimal("-20"))).thenReturn(0);
+        when(debtRepository.findById(1L)).thenReturn(Optional.of(new Debt()));
+
+        assertThrows(InvalidAdjustmentException.class, () -> debtService.adjustDebt(1L, new BigDecimal("-20")));
+        verify(customerDebtSummaryService, never()).adjustAmount(any(), any(), any());
+    }
+
+    @Test
+    public void adjustMissingDebtShouldReturnResourceNotFoundException() {
+        when(debtRepository.adjustAmount(1L, BigDecimal.ONE)).thenReturn(0);
+        when(debtRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> debtService.adjustDebt(1L, BigDecimal.ONE));
+    }
+
+    @Test
+    public void deleteDebtsShouldReturnNumberOfDeletedDebts() {
+        final LocalDate dueBefore = LocalDate.of(2022, 3, 1);
+        when(debtRepository.deleteAllByCustomerIdAndDueDateBefore(1L, dueBefore)).thenReturn(5);
+
+        DebtDeleteResultData result = debtService.deleteDebts(1L, dueBefore);
+        assertEquals(5, result.getDeleted());
+    }
+
+    @Test
+    public void deleteDebtsOfCustomerShouldNotFilterByDueDate() {
+        when(debtRepository.deleteDebtsByCustomerId(1L)).thenReturn(3);
+
+        assertEquals(3, debtService.deleteDebts(1L, null).getDeleted());
+        verify(customerDebtSummaryService).deleteCustomerTotals(1L);
+    }
+
+    @Test
+    public void deleteDebtsDueBeforeShouldNotFilterByCustomer() {
+        final LocalDate dueBefore = LocalDate.of(2022, 3, 1);
+        final List<DebtTotalView> totals = List.of(mock(DebtTotalView.class));
+        when(debtRepository.sumAllByDueDateBefore(dueBefore)).thenReturn(totals);
+        when(debtRepository.deleteAllByDueDateBefore(dueBefore)).thenReturn(4);
+
+        assertEquals(4, debtService.deleteDebts(null, dueBefore).getDeleted());
+        verify(customerDebtSummaryService).removeDebts(totals);
+    }
+
+    @Test
+    public void deleteDebtsWithoutFiltersShouldReturnInvalidFilterException() {
+        assertThrows(InvalidFilterException.class, () -> debtService.deleteDebts(null, null));
+    }
+
+    @Test
+    public void getCustomerDebtsAfterCursorShouldSeekFromDueDateOfCursor() {
+        final String after = SeekCursor.ofKeyAndId("2022-02-10", 10L).encode();
+        final LocalDate dueFrom = LocalDate.of(2022, 2, 1);
+        final LocalDate dueTo = LocalDate.of(2022, 2, 28);
+        when(debtRepository.findAllByCustomerId(1L, LocalDate.of(2022, 2, 10), dueTo, LocalDate.of(2022, 2, 10), 10L,
+                PageRequest.of(0, 6))).thenReturn(debtViews.subList(10, 16));
+        when(debtViewConverter.convert(any(DebtView.class))).thenReturn(expectedDebtDatalist.get(0));
+
+        CursorPage<DebtData> result =
+                debtService.getCustomerDebts(1L, null, dueFrom, dueTo, after, PageRequest.of(0, 5));
+        assertEquals(5, result.getContent().size());
+        assertEquals(SeekCursor.ofKeyAndId("2022-02-15", 15L).encode(), result.getNextCursor());
+        verify(customerRepository, never()).existsById(any());
+    }
+
+    @Test
+    public void getCustomerDebtsInCurrencyShouldSeekInCurrencyIndex() {
+        final Currency currency = new Currency(2L, "Euro", "EUR", "€");
+        when(currencyService.getCurrencyByCode("EUR")).thenReturn(currency);
+        when(debtRepository.findAllByCustomerIdAndCurrencyId(eq(1L), eq(2L), any(), any(), any(), eq(0L), any()))
+                .thenReturn(debtViews.subList(0, 3));
+
+        CursorPage<DebtData> result = debtService.getCustomerDebts(1L, "EUR", null, null, null, PageRequest.of(0, 5));
+        assertEquals(3, result.getContent().size());
+        assertFalse(result.hasNext());
+        verify(debtRepository, never()).findAllByCustomerId(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void getCustomerDebtsOfMissingCustomerShouldReturnResourceNotFoundException() {
+        when(debtRepository.findAllByCustomerId(any(), any(), any(), any(), any(), any())).thenReturn(List.of());
+        when(customerRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> debtService.getCustomerDebts(1L, null, null, null, null, PageRequest.of(0, 5)));
+    }
+
+    @Test
+    public void getCustomerDebtsWithReversedRangeShouldReturnInvalidFilterException() {
+        assertThrows(InvalidFilterException.class, () -> debtService.getCustomerDebts(1L, null,
+                LocalDate.of(2022, 3, 1), LocalDate.of(2022, 2, 1), null, PageRequest.of(0, 5)));
+    }
+
+    @Test
+    public void getCustomerDebtsSortedByAmountShouldReturnInvalidPaginationException() {
+        assertThrows(InvalidPaginationException.class, () -> debtService.getCustomerDebts(1L, null, null, null,
+                null, PageRequest.of(0, 5, Sort.by("amount"))));
     }
 }
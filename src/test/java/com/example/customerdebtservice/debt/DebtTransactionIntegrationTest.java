@@ -0,0 +1,140 @@
+package com.example.customerdebtservice.debt;
+
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.projections.DebtView;
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.example.customerdebtservice.shared.TestFixtures;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DebtTransactionIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DebtViewConverter debtViewConverter;
+
+    @Autowired
+    private DebtConverter debtConverter;
+
+    private static final String DEBTS_URL = "/debts";
+
+    private Customer customer;
+    private Statistics statistics;
+
+    @BeforeAll
+    public void setup() {
+        customer = TestFixtures.customer("Transaction");
+        for (int i = 0; i < 5; i++) {
+            customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(i + 1),
+                    LocalDate.of(2022, 3, 1).plusDays(i), currencyRepository.findCurrencyByCode("EUR").orElseThrow()));
+        }
+        customer = customerRepository.save(customer);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void readShouldRunInReadOnlyTransactionOnSingleConnection() throws Exception {
+        final List<TransactionState> states = new ArrayList<>();
+        doAnswer(invocation -> {
+            states.add(currentTransactionState());
+            return invocation.callRealMethod();
+        }).when(debtViewConverter).convert(any(DebtView.class));
+
+        statistics.clear();
+        mockMvc.perform(get("/customers/" + customer.getId() + "/debts").param("size", "2"))
+                .andExpect(status().isOk());
+
+        assertFalse(states.isEmpty());
+        states.forEach(state -> {
+            assertTrue(state.active, "Debts should be read in a transaction");
+            assertTrue(state.readOnly, "Debts should be read in a read-only transaction");
+            assertEquals(FlushMode.MANUAL, state.flushMode, "Read-only session should not be flushed");
+        });
+        assertEquals(1, statistics.getConnectCount(), "Request should check out a single connection");
+    }
+
+    @Test
+    public void writeShouldRunInReadWriteTransaction() throws Exception {
+        final List<TransactionState> states = new ArrayList<>();
+        doAnswer(invocation -> {
+            states.add(currentTransactionState());
+            return invocation.callRealMethod();
+        }).when(debtConverter).convert(any(Debt.class));
+
+        mockMvc.perform(post(DEBTS_URL)
+                        .content("{\"amount\": \"10.00\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", " +
+                                "\"customerId\": " + customer.getId() + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated());
+
+        assertEquals(1, states.size());
+        assertTrue(states.get(0).active, "Debt should be created in a transaction");
+        assertFalse(states.get(0).readOnly, "Debt should be created in a read-write transaction");
+        assertEquals(FlushMode.AUTO, states.get(0).flushMode);
+    }
+
+    private TransactionState currentTransactionState() {
+        return new TransactionState(TransactionSynchronizationManager.isActualTransactionActive(),
+                TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                entityManager.unwrap(Session.class).getHibernateFlushMode());
+    }
+
+    private static class TransactionState {
+        private final boolean active;
+        private final boolean readOnly;
+        private final FlushMode flushMode;
+
+        private TransactionState(boolean active, boolean readOnly, FlushMode flushMode) {
+            this.active = active;
+            this.readOnly = readOnly;
+            this.flushMode = flushMode;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.customerdebtservice.load;
+
+import com.example.customerdebtservice.customer.forms.CustomerForm;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.batch.DebtBatchReader;
+import com.example.customerdebtservice.debt.forms.DebtForm;
+import com.example.customerdebtservice.debt.models.Debt;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import com.example.customerdebtservice.debt.services.DebtService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drives a weighted mix of customer and debt requests against the application on a random port
+ * at a constant rate and writes latency percentiles and throughput per endpoint to a JSON report.
+ * Excluded from the regular test run, execute with:
+ * ./mvnw test -Pbenchmark -Dtest=HttpLoadBenchmark -Dload.rate=100 -Dload.duration=60
+ * -Dload.mix="GET /debts=50,POST /debts=50"
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:http-load-benchmark",
+        "logging.level.com.example.customerdebtservice=WARN"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class HttpLoadBenchmark {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private DebtService debtService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String DEFAULT_MIX = "GET /customers=15,GET /customers/{id}=15,POST /customers=5," +
+            "PUT /customers/{id}=5,DELETE /customers/{id}=5,GET /debts=20,GET /debts/{id}=15,POST /debts=10," +
+            "PUT /debts/{id}=5,DELETE /debts/{id}=5";
+    private static final String AUTHORIZATION = "Basic " +
+            Base64.getEncoder().encodeToString("user:1234".getBytes(StandardCharsets.UTF_8));
+    private static final String[] CURRENCIES = {"EUR", "USD", "LVL"};
+
+    private final double rate = Double.parseDouble(System.getProperty("load.rate", "20"));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+    private final int customers = Integer.getInteger("load.customers", 100);
+    private final int debtsPerCustomer = Integer.getInteger("load.debts-per-customer", 10);
+    private final String mix = System.getProperty("load.mix", DEFAULT_MIX);
+    private final File reportFile = new File(System.getProperty("load.report", "target/load-report.json"));
+
+    private final AtomicLong emailSequence = new AtomicLong();
+    private final Queue<Long> createdCustomerIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> createdDebtIds = new ConcurrentLinkedQueue<>();
+    private List<Long> customerIds;
+    private List<Long> debtIds;
+    private HttpClient client;
+
+    @BeforeAll
+    public void setup() throws IOException {
+        final List<Customer> seeded = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer();
+            customer.setName("Customer " + i);
+            customer.setSurname("Surname " + i);
+            customer.setCountry("Latvia");
+            customer.setEmail("load-" + i + "@test.com");
+            customer.setPassword("password");
+            seeded.add(customer);
+        }
+        customerIds = customerRepository.saveAll(seeded).stream().map(Customer::getId).collect(Collectors.toList());
+
+        final StringBuilder body = new StringBuilder();
+        for (Long customerId : customerIds) {
+            for (int i = 0; i < debtsPerCustomer; i++) {
+                body.append(json(debtForm(customerId))).append('\n');
+            }
+        }
+        try (DebtBatchReader reader = new DebtBatchReader(objectMapper,
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)))) {
+            debtService.createDebts(reader);
+        }
+        debtIds = debtRepository.findAll().stream().map(Debt::getId).collect(Collectors.toList());
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @Test
+    public void measureEndpointLatencies() throws Exception {
+        final HttpLoadGenerator generator = new HttpLoadGenerator(client, operations(mix));
+        generator.run(rate, warmup);
+        final LoadReport report = generator.run(rate, duration);
+
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        report.getEndpoints().forEach((endpoint, result) -> log.warn(String.format(
+                "%-22s %6d requests %4d errors %8.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms",
+                endpoint, result.getCount(), result.getErrors(), result.getThroughput(),
+                result.getP50Millis(), result.getP99Millis(), result.getP999Millis())));
+        log.warn("Sent " + report.getSent() + " requests at " + rate + " req/s, " + report.getLate()
+                + " started late, report: " + reportFile.getAbsolutePath());
+    }
+
+    private List<LoadOperation> operations(String mix) {
+        final Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            final String[] nameAndWeight = entry.split("=");
+            weights.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights.entrySet().stream()
+                .map(entry -> operation(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private LoadOperation operation(String name, int weight) {
+        switch (name) {
+            case "GET /customers":
+                return operation(name, weight, () -> request("/customers?size=20").GET().build());
+            case "GET /customers/{id}":
+                return operation(name, weight, () -> request("/customers/" + random(customerIds)).GET().build());
+            case "POST /customers":
+                return operation(name, weight, () -> request("/customers").POST(body(customerForm())).build(),
+                        response -> createdCustomerIds.add(id(response)));
+            case "PUT /customers/{id}":
+                return operation(name, weight, () -> {
+                    final int index = ThreadLocalRandom.current().nextInt(customerIds.size());
+                    final CustomerForm form = customerForm();
+                    form.setEmail("load-" + index + "@test.com");
+                    return request("/customers/" + customerIds.get(index)).PUT(body(form)).build();
+                });
+            case "DELETE /customers/{id}":
+                return operation(name, weight, () -> delete(createdCustomerIds.poll(), "/customers/"));
+            case "GET /debts":
+                return operation(name, weight, () -> request("/debts?size=20").GET().build());
+            case "GET /debts/{id}":
+                return operation(name, weight, () -> request("/debts/" + random(debtIds)).GET().build());
+            case "POST /debts":
+                return operation(name, weight,
+                        () -> request("/debts").POST(body(debtForm(random(customerIds)))).build(),
+                        response -> createdDebtIds.add(id(response)));
+            case "PUT /debts/{id}":
+                return operation(name, weight, () -> {
+                    final Long debtId = random(debtIds);
+                    return request("/debts/" + debtId).PUT(body(debtForm(customerIds.get(
+                            (int) (debtId % customerIds.size()))))).build();
+                });
+            case "DELETE /debts/{id}":
+                return operation(name, weight, () -> delete(createdDebtIds.poll(), "/debts/"));
+            default:
+                throw new IllegalArgumentException("Unknown load operation: " + name);
+        }
+    }
+
+    private LoadOperation operation(String name, int weight, Supplier<HttpRequest> request) {
+        return operation(name, weight, request, response -> {
+        });
+    }
+
+    private LoadOperation operation(String name, int weight, Supplier<HttpRequest> request,
+                                    Consumer<HttpResponse<String>> onSuccess) {
+        return new LoadOperation(name, weight, request, onSuccess);
+    }
+
+    /**
+     * Deletes only resources created during the run, so that the seeded data set keeps its size
+     */
+    private HttpRequest delete(Long id, String path) {
+        return id == null ? null : request(path + id).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private HttpRequest.BodyPublisher body(Object form) {
+        return HttpRequest.BodyPublishers.ofString(json(form));
+    }
+
+    private String json(Object form) {
+        try {
+            return objectMapper.writeValueAsString(form);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Long id(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).get("id").asLong();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CustomerForm customerForm() {
+        return new CustomerForm("Load", "Customer", "Latvia",
+                "load-created-" + emailSequence.incrementAndGet() + "@test.com", "password");
+    }
+
+    private DebtForm debtForm(Long customerId) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new DebtForm(BigDecimal.valueOf(random.nextInt(1, 100_000), 2),
+                CURRENCIES[random.nextInt(CURRENCIES.length)],
+                LocalDate.of(2022, 1, 1).plusDays(random.nextInt(365)), customerId);
+    }
+
+    private static Long random(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.customerdebtservice.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are started at a constant rate regardless of how fast the server responds,
+ * and every latency is measured from the intended start of the request, so that a slow response doesn't
+ * delay (and hide) the requests scheduled behind it
+ */
+public class HttpLoadGenerator {
+    private static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+
+    private final HttpClient client;
+    private final List<LoadOperation> mix;
+    private final int totalWeight;
+
+    public HttpLoadGenerator(HttpClient client, List<LoadOperation> mix) {
+        this.client = client;
+        this.mix = List.copyOf(mix);
+        this.totalWeight = mix.stream().mapToInt(LoadOperation::getWeight).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Load mix should have positive total weight");
+        }
+    }
+
+    /**
+     * Sends requests at the given rate for the given duration and waits for the outstanding responses
+     *
+     * @param rate     requests per second
+     * @param duration of sending
+     * @return latency percentiles and throughput per operation
+     */
+    public LoadReport run(double rate, Duration duration)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final List<CompletableFuture<Void>> responses = new ArrayList<>();
+        final long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        long sent = 0;
+        long late = 0;
+
+        for (long intendedStart = start; intendedStart < end; intendedStart += interval) {
+            final long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (-wait > LATE_THRESHOLD_NANOS) {
+                late++;
+            }
+            final LoadOperation operation = pick();
+            final HttpRequest request = operation.getRequest().get();
+            if (request == null) {
+                continue;
+            }
+            final long scheduled = intendedStart;
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        final boolean success = error == null && response.statusCode() < 400;
+                        recorder.record(operation.getName(), System.nanoTime() - scheduled, success);
+                        if (success) {
+                            operation.getOnSuccess().accept(response);
+                        }
+                        return null;
+                    }));
+            sent++;
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .get(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        final double seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        return new LoadReport(rate, seconds, sent, late, recorder.report(seconds));
+    }
+
+    private LoadOperation pick() {
+        int remaining = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (LoadOperation operation : mix) {
+            remaining -= operation.getWeight();
+            if (remaining < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Load mix is empty");
+    }
+}
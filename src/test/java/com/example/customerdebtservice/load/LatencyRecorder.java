@@ -0,0 +1,62 @@
+package com.example.customerdebtservice.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects response latencies per endpoint and summarizes them into percentiles
+ */
+public class LatencyRecorder {
+    private final Map<String, EndpointLatencies> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos, boolean success) {
+        endpoints.computeIfAbsent(endpoint, e -> new EndpointLatencies()).record(latencyNanos, success);
+    }
+
+    /**
+     * @param durationSeconds duration of the measured run, used for throughput
+     * @return reports sorted by endpoint name
+     */
+    public Map<String, LoadReport.Endpoint> report(double durationSeconds) {
+        final Map<String, LoadReport.Endpoint> report = new TreeMap<>();
+        endpoints.forEach((endpoint, latencies) -> report.put(endpoint, latencies.report(durationSeconds)));
+        return report;
+    }
+
+    private static final class EndpointLatencies {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized LoadReport.Endpoint report(double durationSeconds) {
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new LoadReport.Endpoint(count, errors, count / durationSeconds,
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 99), percentileMillis(sorted, 99.9),
+                    count == 0 ? 0 : sorted[count - 1] / 1_000_000d);
+        }
+
+        /**
+         * Nearest-rank percentile
+         */
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.customerdebtservice.load;
+
+import lombok.Value;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Request type of a load mix, e.g. "GET /debts/{id}", picked with probability proportional to its weight
+ */
+@Value
+public class LoadOperation {
+    String name;
+    int weight;
+    /**
+     * Builds the next request, null when the operation has nothing to act on yet (e.g. no created debt to delete)
+     */
+    Supplier<HttpRequest> request;
+    /**
+     * Receives successful responses, e.g. to remember IDs of created resources
+     */
+    Consumer<HttpResponse<String>> onSuccess;
+}
@@ -0,0 +1,35 @@
+package com.example.customerdebtservice.load;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Result of a load run, serialized to JSON so that runs can be compared
+ */
+@Value
+public class LoadReport {
+    double targetRate;
+    double durationSeconds;
+    long sent;
+    /**
+     * Requests which couldn't be sent at their intended time, as all connections were busy
+     */
+    long late;
+    Map<String, Endpoint> endpoints;
+
+    /**
+     * Latencies are measured from the intended start of a request, not from the moment it was sent,
+     * so that a stalled server is not hidden by the generator waiting for it (coordinated omission)
+     */
+    @Value
+    public static class Endpoint {
+        long count;
+        long errors;
+        double throughput;
+        double p50Millis;
+        double p99Millis;
+        double p999Millis;
+        double maxMillis;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.customerdebtservice.security;
+
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares throughput of authenticated requests with HTTP Basic, which runs the password encoder on every request
+ * when the credential cache is disabled, and with a bearer token, which is verified with a single HMAC.
+ * Excluded from the regular test run, execute with: ./mvnw test -Pbenchmark -Dtest=AuthenticationBenchmark
+ */
+@Tag("benchmark")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:authentication-benchmark",
+        "security.credential-cache.max-size=0",
+        "logging.level.com.example.customerdebtservice=WARN"})
+@Slf4j
+public class AuthenticationBenchmark {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String CUSTOMERS_URL = "/customers";
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200);
+
+    @Test
+    public void compareBasicAndTokenThroughput() throws Exception {
+        final String basic = "Basic " + Base64.getEncoder()
+                .encodeToString("user:1234".getBytes(StandardCharsets.UTF_8));
+        final String response = mockMvc.perform(post("/auth/token").with(httpBasic("user", "1234")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final String bearer = "Bearer " + JsonPath.read(response, "$.token");
+
+        final RequestBuilder basicRequest = get(CUSTOMERS_URL).header(HttpHeaders.AUTHORIZATION, basic);
+        final RequestBuilder bearerRequest = get(CUSTOMERS_URL).header(HttpHeaders.AUTHORIZATION, bearer);
+        // Warm up both paths, so that the measurement doesn't include class loading and JIT
+        measure(WARMUP, basicRequest);
+        measure(WARMUP, bearerRequest);
+
+        final double basicThroughput = measure(ITERATIONS, basicRequest);
+        final double bearerThroughput = measure(ITERATIONS, bearerRequest);
+        log.warn(String.format("GET %s: Basic %.1f req/s, Bearer %.1f req/s", CUSTOMERS_URL, basicThroughput,
+                bearerThroughput));
+    }
+
+    private double measure(int iterations, RequestBuilder request) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mockMvc.perform(request).andExpect(status().isOk());
+        }
+        return iterations / ((System.nanoTime() - start) / 1_000_000_000d);
+    }
+}
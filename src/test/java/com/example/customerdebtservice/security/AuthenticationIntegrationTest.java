@@ -0,0 +1,107 @@
+package com.example.customerdebtservice.security;
+
+import com.example.customerdebtservice.shared.AbstractIntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AuthenticationIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void repeatedBasicAuthenticationShouldBeServedFromCache() throws Exception {
+        final double hits = cacheCount("hit");
+        final double misses = cacheCount("miss");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/customers").with(httpBasic("user", "1234")))
+                    .andExpect(status().isOk());
+        }
+
+        // The first request may be a hit as well, when another test verified the same credentials before
+        assertEquals(3, cacheCount("hit") - hits + cacheCount("miss") - misses);
+        assertTrue(cacheCount("miss") - misses <= 1, "Only the first request should verify the password");
+    }
+
+    @Test
+    public void wrongPasswordShouldBeRejected() throws Exception {
+        mockMvc.perform(get("/customers").with(httpBasic("user", "1234")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/customers").with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void metricsShouldBeExposed() throws Exception {
+        mockMvc.perform(get("/customers").with(httpBasic("user", "1234")));
+
+        mockMvc.perform(get("/actuator/metrics/auth.verification.cache.hit.ratio").with(httpBasic("user", "1234")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").exists());
+    }
+
+    @Test
+    public void tokenShouldAuthenticateRequestsWithoutPassword() throws Exception {
+        final String response = mockMvc.perform(post("/auth/token").with(httpBasic("user", "1234")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.expiresAt").exists())
+                .andReturn().getResponse().getContentAsString();
+        final String token = JsonPath.read(response, "$.token");
+        final double misses = cacheCount("miss");
+        final double hits = cacheCount("hit");
+
+        mockMvc.perform(get("/customers").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        assertEquals(misses, cacheCount("miss"), "Token should be verified without the password encoder");
+        assertEquals(hits, cacheCount("hit"));
+    }
+
+    @Test
+    public void invalidTokenShouldBeRejected() throws Exception {
+        mockMvc.perform(get("/customers").header(HttpHeaders.AUTHORIZATION, "Bearer invalid.token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    public void tokenShouldNotBeIssuedWithoutCredentials() throws Exception {
+        mockMvc.perform(post("/auth/token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/token").with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void tokenShouldNotBeIssuedForToken() throws Exception {
+        final String response = mockMvc.perform(post("/auth/token").with(httpBasic("user", "1234")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final String token = JsonPath.read(response, "$.token");
+
+        mockMvc.perform(post("/auth/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.get("auth.verification.cache").tag("result", result).counter().count();
+    }
+}
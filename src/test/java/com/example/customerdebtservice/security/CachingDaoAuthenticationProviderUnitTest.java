@@ -0,0 +1,115 @@
+package com.example.customerdebtservice.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachingDaoAuthenticationProviderUnitTest {
+
+    private final PasswordEncoder passwordEncoder = spy(new BCryptPasswordEncoder(4));
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InMemoryUserDetailsManager userDetailsManager;
+    private CachingDaoAuthenticationProvider provider;
+
+    @BeforeEach
+    public void init() {
+        userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password(passwordEncoder.encode("1234")).roles("USER").build());
+        provider = new CachingDaoAuthenticationProvider(
+                new CredentialVerificationCache(Duration.ofMinutes(5), 100), meterRegistry);
+        provider.setUserDetailsService(userDetailsManager);
+        provider.setPasswordEncoder(passwordEncoder);
+    }
+
+    @Test
+    public void repeatedAuthenticationShouldVerifyPasswordOnce() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(provider.authenticate(token("user", "1234")).isAuthenticated());
+        }
+
+        verify(passwordEncoder, times(1)).matches("1234", userDetailsManager.loadUserByUsername("user").getPassword());
+        assertEquals(2, meterRegistry.get("auth.verification.cache").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("auth.verification.cache").tag("result", "miss").counter().count());
+        assertEquals(2d / 3, meterRegistry.get("auth.verification.cache.hit.ratio").gauge().value(), 0.001);
+        assertTrue(meterRegistry.get("auth.verification.cache.saved").functionCounter().count() > 0);
+    }
+
+    @Test
+    public void wrongPasswordShouldNotBeCached() {
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("user", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("user", "wrong")));
+
+        assertEquals(0, meterRegistry.get("auth.verification.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void changedPasswordShouldInvalidateCachedVerification() {
+        provider.authenticate(token("user", "1234"));
+        userDetailsManager.updateUser(
+                User.withUsername("user").password(passwordEncoder.encode("5678")).roles("USER").build());
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("user", "1234")));
+        assertTrue(provider.authenticate(token("user", "5678")).isAuthenticated());
+    }
+
+    @Test
+    public void cacheShouldForgetExpiredAndEvictedVerifications() {
+        final MutableClock clock = new MutableClock();
+        final CredentialVerificationCache cache = new CredentialVerificationCache(Duration.ofMinutes(5), 2, clock);
+        cache.markVerified("user", "1234", "hash");
+        assertTrue(cache.isVerified("user", "1234", "hash"));
+        assertFalse(cache.isVerified("user", "12345", "hash"));
+
+        clock.instant = clock.instant.plus(Duration.ofMinutes(5));
+        assertFalse(cache.isVerified("user", "1234", "hash"));
+
+        cache.markVerified("a", "1", "hash");
+        cache.markVerified("b", "2", "hash");
+        cache.markVerified("c", "3", "hash");
+        assertEquals(2, cache.size());
+        assertFalse(cache.isVerified("a", "1", "hash"));
+    }
+
+    private UsernamePasswordAuthenticationToken token(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2022-03-01T00:00:00Z");
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.customerdebtservice.security;
+
+import com.example.customerdebtservice.shared.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHasherUnitTest {
+
+    private static final String EMAIL = "customer@test.com";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger encodings = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private final PasswordEncoder passwordEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (blocking) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash-" + encodings.incrementAndGet() + "-" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.endsWith("-" + rawPassword);
+        }
+    };
+    private final PasswordHasher passwordHasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1,
+            new CredentialVerificationCache(Duration.ofMinutes(5), 100));
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    public void unchangedPasswordShouldKeepStoredHash() {
+        final String hash = passwordHasher.hash(EMAIL, "password", null);
+
+        assertEquals(hash, passwordHasher.hash(EMAIL, "password", hash));
+        assertEquals(1, encodings.get());
+        assertEquals(1, meterRegistry.counter("password.hashing.skipped").count());
+    }
+
+    @Test
+    public void changedPasswordShouldBeHashedAgain() {
+        final String hash = passwordHasher.hash(EMAIL, "password", null);
+
+        final String changed = passwordHasher.hash(EMAIL, "changed", hash);
+        assertNotEquals(hash, changed);
+        assertTrue(passwordEncoder.matches("changed", changed));
+        assertEquals(2, encodings.get());
+    }
+
+    @Test
+    public void unchangedPasswordHashedByAnotherNodeShouldKeepStoredHash() {
+        passwordHasher.hash(EMAIL, "password", null);
+
+        assertEquals("other-node-hash-password", passwordHasher.hash(EMAIL, "password", "other-node-hash-password"));
+        assertEquals(1, encodings.get());
+        assertEquals(1, meterRegistry.counter("password.hashing.skipped").count());
+    }
+
+    @Test
+    public void passwordNotMatchingStoredHashShouldBeHashedAgain() {
+        final String changed = passwordHasher.hash(EMAIL, "changed", "other-node-hash-password");
+
+        assertNotEquals("other-node-hash-password", changed);
+        assertTrue(passwordEncoder.matches("changed", changed));
+        assertEquals(1, encodings.get());
+        assertEquals(0, meterRegistry.counter("password.hashing.skipped").count());
+    }
+
+    @Test
+    public void hashingShouldBeRejectedWhenQueueIsFull() throws Exception {
+        blocking = true;
+        // One password is being hashed and one waits in the queue
+        final CompletableFuture<String> running = CompletableFuture.supplyAsync(
+                () -> passwordHasher.hash("first@test.com", "password", null));
+        final CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> passwordHasher.hash("second@test.com", "password", null));
+        waitUntil(() -> meterRegistry.get("executor.queued").tag("name", "password.hashing").gauge().value() == 1);
+
+        assertThrows(ServiceUnavailableException.class, () -> passwordHasher.hash(EMAIL, "password", null));
+        assertEquals(1, meterRegistry.counter("password.hashing.rejected").count());
+
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS).startsWith("hash-"));
+        assertTrue(queued.get(10, TimeUnit.SECONDS).startsWith("hash-"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.customerdebtservice.security.token;
+
+import com.example.customerdebtservice.security.dto.TokenData;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BearerTokenServiceUnitTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Instant NOW = Instant.parse("2022-03-01T00:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    private final BearerTokenService bearerTokenService =
+            new BearerTokenService(SECRET, TTL, Clock.fixed(NOW, ZoneOffset.UTC));
+    private final Authentication user = new UsernamePasswordAuthenticationToken("user", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+    @Test
+    public void issuedTokenShouldVerifyToTheSameUser() {
+        final TokenData token = bearerTokenService.issue(user);
+
+        assertEquals("Bearer", token.getTokenType());
+        assertEquals(NOW.plus(TTL), token.getExpiresAt());
+        final Authentication authentication = bearerTokenService.verify(token.getToken()).orElseThrow();
+        assertEquals("user", authentication.getName());
+        assertEquals(user.getAuthorities(), authentication.getAuthorities());
+        assertTrue(authentication.isAuthenticated());
+    }
+
+    @Test
+    public void tokenShouldBeAcceptedByAnotherNodeWithTheSameSecret() {
+        final String token = bearerTokenService.issue(user).getToken();
+        final BearerTokenService otherNode = new BearerTokenService(SECRET, TTL, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertTrue(otherNode.verify(token).isPresent());
+    }
+
+    @Test
+    public void tokenSignedWithAnotherSecretShouldBeRejected() {
+        final String token = new BearerTokenService("", TTL, Clock.fixed(NOW, ZoneOffset.UTC)).issue(user).getToken();
+
+        assertTrue(bearerTokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void tamperedTokenShouldBeRejected() {
+        final String token = bearerTokenService.issue(user).getToken();
+        final String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("admin\n9999999999\nROLE_ADMIN".getBytes());
+
+        assertTrue(bearerTokenService.verify(payload + token.substring(token.indexOf('.'))).isEmpty());
+        assertTrue(bearerTokenService.verify(token + "x").isEmpty());
+        assertTrue(bearerTokenService.verify("not a token").isEmpty());
+        assertTrue(bearerTokenService.verify(".").isEmpty());
+    }
+
+    @Test
+    public void expiredTokenShouldBeRejected() {
+        final String token = bearerTokenService.issue(user).getToken();
+        final BearerTokenService later = new BearerTokenService(SECRET, TTL,
+                Clock.fixed(NOW.plus(TTL), ZoneOffset.UTC));
+
+        assertTrue(later.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.customerdebtservice.shared;
+
+import com.example.customerdebtservice.customer.converters.CustomerDebtTotalConverter;
+import com.example.customerdebtservice.debt.converters.DebtConverter;
+import com.example.customerdebtservice.debt.converters.DebtViewConverter;
+import com.example.customerdebtservice.security.PasswordHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Integration tests share one application context and database, so that it is started once per run.
+ * Beans spied by any of the tests are declared here, as each different set of spies starts its own context,
+ * tests autowire them and the stubbing is reset after each test. Tests create their own customers
+ * with {@link TestFixtures} instead of expecting an empty database.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.customerdebtservice.shared.RecordingStatementInspector")
+public abstract class AbstractIntegrationTest {
+
+    @SpyBean
+    private CustomerDebtTotalConverter customerDebtTotalConverter;
+
+    @SpyBean
+    private DebtConverter debtConverter;
+
+    @SpyBean
+    private DebtViewConverter debtViewConverter;
+
+    @SpyBean
+    private PasswordHasher passwordHasher;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearRecordedStatements() {
+        RecordingStatementInspector.clear();
+    }
+}
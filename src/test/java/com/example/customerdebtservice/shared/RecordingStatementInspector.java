@@ -0,0 +1,37 @@
+package com.example.customerdebtservice.shared;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Records SQL prepared by Hibernate, enabled for integration tests by
+ * "spring.jpa.properties.hibernate.session_factory.statement_inspector" property of {@link AbstractIntegrationTest}
+ */
+public class RecordingStatementInspector implements StatementInspector {
+    private static final Queue<String> statements = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        statements.clear();
+    }
+
+    /**
+     * @return recorded statements starting with the prefix, case insensitive
+     */
+    public static List<String> statementsStartingWith(String prefix) {
+        final String lowerCasePrefix = prefix.toLowerCase(Locale.ROOT);
+        return statements.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith(lowerCasePrefix))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.customerdebtservice.shared;
+
+import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerDebtSummaryRepository;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import com.example.customerdebtservice.debt.repositories.DebtRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs EXPLAIN on the SQL of every repository query and fails when a table is read without an index condition,
+ * so that a dropped index or a query rewritten into a non-sargable form is noticed before it reaches a large table.
+ * Reading a table in index order is accepted only for pages bounded by a limit.
+ * DebtRepository.streamAll reads the whole table by design and is not checked
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RepositoryQueryPlanIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private DebtRepository debtRepository;
+
+    @Autowired
+    private CustomerDebtSummaryRepository customerDebtSummaryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final int CUSTOMER_COUNT = 20;
+    private static final int DEBTS_PER_CUSTOMER = 25;
+    private static final LocalDate DUE_DATE = LocalDate.of(2022, 3, 1);
+    private static final PageRequest PAGE = PageRequest.of(1, 10);
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10);
+    /**
+     * Table access of H2 plan: "PUBLIC.DEBT.tableScan", "PUBLIC.PRIMARY_KEY_2" or "PUBLIC.IDX_X: CUSTOMER_ID = ?1"
+     */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.([\\w.]+)(: [^*]+)? \\*/");
+    private static final Pattern LIMIT = Pattern.compile("FETCH (FIRST|NEXT) \\?\\d+ ROWS ONLY");
+
+    private String email;
+    private Long firstCustomerId;
+    private Long customerId;
+    private Long currencyId;
+    private Long debtId;
+
+    @BeforeAll
+    public void setup() {
+        final List<Currency> currencies = currencyRepository.findAll();
+        currencyId = currencies.get(0).getId();
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            Customer customer = TestFixtures.customer("Query-plan");
+            for (int j = 0; j < DEBTS_PER_CUSTOMER; j++) {
+                customer.getDebts().add(TestFixtures.debt(customer, new BigDecimal(j + 1), DUE_DATE.plusDays(j),
+                        currencies.get(j % currencies.size())));
+            }
+            Customer saved = customerRepository.save(customer);
+            customerId = saved.getId();
+            debtId = saved.getDebts().get(0).getId();
+            if (i == 0) {
+                firstCustomerId = customerId;
+                email = customer.getEmail();
+            }
+        }
+        jdbcTemplate.update("insert into customer_debt_summary " +
+                "(customer_id, currency_id, total_amount, debt_count, nearest_due_date) " +
+                "select customer_id, currency_id, sum(amount), count(*), min(due_date) from debt " +
+                "where customer_id between ? and ? group by customer_id, currency_id", firstCustomerId, customerId);
+        // Row counts of the seeded tables are used by the optimizer to cost the plans
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    public Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("CurrencyRepository.findCurrencyByCode", () -> currencyRepository.findCurrencyByCode("EUR")),
+                query("CustomerRepository.findByEmail", () -> customerRepository.findByEmail(email)),
+                query("CustomerRepository.findSummaries", () -> customerRepository.findSummaries(PAGE)),
+                query("CustomerRepository.findSummariesAfter",
+                        () -> customerRepository.findSummariesAfter(customerId, FIRST_PAGE)),
+                query("CustomerRepository.findWithDebtRowsById",
+                        () -> customerRepository.findWithDebtRowsById(customerId)),
+                query("CustomerRepository.findExistingIds",
+                        () -> customerRepository.findExistingIds(List.of(customerId, customerId - 1))),
+                query("CustomerRepository.deleteCustomerById", () -> customerRepository.deleteCustomerById(-1L)),
+                query("CustomerRepository.deleteCustomerByIdAndVersion",
+                        () -> customerRepository.deleteCustomerByIdAndVersion(-1L, 0L)),
+                query("DebtRepository.findAllByCustomerId", () -> debtRepository.findAllByCustomerId(customerId,
+                        DUE_DATE, DUE_DATE.plusDays(DEBTS_PER_CUSTOMER), DUE_DATE, debtId, FIRST_PAGE)),
+                query("DebtRepository.findAllByCustomerIdAndCurrencyId",
+                        () -> debtRepository.findAllByCustomerIdAndCurrencyId(customerId, currencyId, DUE_DATE,
+                                DUE_DATE.plusDays(DEBTS_PER_CUSTOMER), DUE_DATE, debtId, FIRST_PAGE)),
+                query("DebtRepository.findAll", () -> debtRepository.findAll(PAGE)),
+                query("DebtRepository.findAllBy", () -> debtRepository.findAllBy(PAGE)),
+                query("DebtRepository.findViewById", () -> debtRepository.findViewById(debtId)),
+                query("DebtRepository.findAllByCustomerIdIn",
+                        () -> debtRepository.findAllByCustomerIdIn(List.of(customerId, customerId - 1))),
+                query("DebtRepository.findAllAfterId", () -> debtRepository.findAllAfterId(debtId, FIRST_PAGE)),
+                query("DebtRepository.findAllOrderByDueDate", () -> debtRepository.findAllOrderByDueDate(FIRST_PAGE)),
+                query("DebtRepository.findAllAfterDueDateAndId",
+                        () -> debtRepository.findAllAfterDueDateAndId(DUE_DATE, debtId, FIRST_PAGE)),
+                query("DebtRepository.deleteDebtByIdAndVersion",
+                        () -> debtRepository.deleteDebtByIdAndVersion(debtId, 0L)),
+                query("DebtRepository.adjustAmount", () -> debtRepository.adjustAmount(debtId, BigDecimal.ONE)),
+                query("DebtRepository.deleteDebtsByCustomerId",
+                        () -> debtRepository.deleteDebtsByCustomerId(customerId)),
+                query("DebtRepository.findIdsByCustomerId",
+                        () -> debtRepository.findIdsByCustomerId(customerId, FIRST_PAGE)),
+                query("DebtRepository.deleteDebtsByIdIn", () -> debtRepository.deleteDebtsByIdIn(List.of(debtId))),
+                query("DebtRepository.sumAllByIdIn", () -> debtRepository.sumAllByIdIn(List.of(debtId))),
+                query("DebtRepository.deleteAllByCustomerIdAndDueDateBefore",
+                        () -> debtRepository.deleteAllByCustomerIdAndDueDateBefore(customerId, DUE_DATE)),
+                query("DebtRepository.sumAllByCustomerIdAndDueDateBefore",
+                        () -> debtRepository.sumAllByCustomerIdAndDueDateBefore(customerId, DUE_DATE)),
+                query("DebtRepository.sumAllByDueDateBefore", () -> debtRepository.sumAllByDueDateBefore(DUE_DATE)),
+                query("DebtRepository.deleteAllByDueDateBefore",
+                        () -> debtRepository.deleteAllByDueDateBefore(DUE_DATE)),
+                query("CustomerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId",
+                        () -> customerDebtSummaryRepository.findAllByCustomerIdOrderByCurrencyId(customerId)),
+                query("CustomerDebtSummaryRepository.findAllByCustomerIdInOrderByCurrencyId",
+                        () -> customerDebtSummaryRepository.findAllByCustomerIdInOrderByCurrencyId(
+                                List.of(customerId, customerId - 1))),
+                query("CustomerDebtSummaryRepository.findAllBy", () -> customerDebtSummaryRepository.findAllBy(PAGE)),
+                query("CustomerDebtSummaryRepository.findAllByCurrencyId",
+                        () -> customerDebtSummaryRepository.findAllByCurrencyId(currencyId, PAGE)),
+                query("CustomerDebtSummaryRepository.addDebts", () -> customerDebtSummaryRepository.addDebts(
+                        customerId, currencyId, BigDecimal.ONE, 1, DUE_DATE)),
+                query("CustomerDebtSummaryRepository.adjustAmount",
+                        () -> customerDebtSummaryRepository.adjustAmount(customerId, currencyId, BigDecimal.ONE)),
+                query("CustomerDebtSummaryRepository.removeDebt",
+                        () -> customerDebtSummaryRepository.removeDebt(customerId, currencyId, BigDecimal.ONE)),
+                query("CustomerDebtSummaryRepository.deleteEmptySummary",
+                        () -> customerDebtSummaryRepository.deleteEmptySummary(customerId, currencyId)),
+                query("CustomerDebtSummaryRepository.refreshNearestDueDate",
+                        () -> customerDebtSummaryRepository.refreshNearestDueDate(customerId, currencyId, DUE_DATE)),
+                query("CustomerDebtSummaryRepository.deleteSummariesByCustomerId",
+                        () -> customerDebtSummaryRepository.deleteSummariesByCustomerId(customerId)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    public void repositoryQueryShouldNotScanWholeTable(String name, Runnable query) {
+        final List<String> statements = record(query);
+        assertFalse(statements.isEmpty(), name + " should issue a statement");
+        for (String sql : statements) {
+            final String plan = explain(sql);
+            final List<String> scans = fullScans(plan);
+            assertTrue(scans.isEmpty(), name + " reads " + scans + " without index condition:\n" + plan);
+        }
+    }
+
+    private List<String> record(Runnable query) {
+        // Cached query results of other tests would be returned without a statement
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        RecordingStatementInspector.clear();
+        // Modifying queries are rolled back, so that every query runs against the same data
+        transactionTemplate.executeWithoutResult(status -> {
+            query.run();
+            status.setRollbackOnly();
+        });
+        return Stream.of("select", "update", "delete", "insert")
+                .flatMap(prefix -> RecordingStatementInspector.statementsStartingWith(prefix).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parameters don't need to be bound, H2 chooses indexes when the statement is prepared
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    fail("No plan for " + sql);
+                }
+                return resultSet.getString(1);
+            }
+        });
+    }
+
+    /**
+     * @return table accesses without index condition, unless the read is stopped by a limit before sorting,
+     * which is the case for unsorted pages and for pages sorted by the scanned index,
+     * or unless it's a count answered from the row count of the table
+     */
+    private static List<String> fullScans(String plan) {
+        final boolean limitedBeforeSorting = LIMIT.matcher(plan).find()
+                && (!plan.contains("ORDER BY") || plan.contains("/* index sorted */"));
+        final boolean directLookup = plan.contains("/* direct lookup */");
+        final List<String> scans = new ArrayList<>();
+        final Matcher matcher = TABLE_ACCESS.matcher(plan);
+        while (matcher.find()) {
+            if (matcher.group(2) == null && !limitedBeforeSorting && !directLookup) {
+                scans.add(matcher.group(1));
+            }
+        }
+        return scans;
+    }
+
+    private static Arguments query(String name, Runnable query) {
+        return Arguments.of(name, query);
+    }
+}
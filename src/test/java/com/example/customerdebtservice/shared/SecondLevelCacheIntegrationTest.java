@@ -0,0 +1,146 @@
+package com.example.customerdebtservice.shared;
+
+import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.currency.repositories.CurrencyRepository;
+import com.example.customerdebtservice.currency.services.CurrencyService;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.customer.repositories.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static com.example.customerdebtservice.shared.cache.SecondLevelCacheConfiguration.CUSTOMER_REGION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(roles = "USER")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SecondLevelCacheIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void debtWriteForCachedButDeletedCustomerShouldReturnNotFound() throws Exception {
+        final Customer customer = saveCustomer();
+        assertTrue(entityManagerFactory.getCache().contains(Customer.class, customer.getId()));
+        // Deleted by another node or directly in the database, the cached entry is stale
+        jdbcTemplate.update("delete from customer where id = ?", customer.getId());
+
+        mockMvc.perform(post("/debts")
+                        .content("{\"amount\": \"10.00\", \"currency\": \"EUR\", \"dueDate\": \"2022-05-01\", " +
+                                "\"customerId\": " + customer.getId() + "}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void customerUpdateShouldReplaceCachedCustomer() throws Exception {
+        final Customer customer = saveCustomer();
+        assertTrue(entityManagerFactory.getCache().contains(Customer.class, customer.getId()));
+
+        mockMvc.perform(patch("/customers/" + customer.getId())
+                        .content("{\"name\": \"Renamed\"}")
+                        .contentType("application/merge-patch+json"))
+                .andExpect(status().isOk());
+
+        statistics.clear();
+        assertEquals("Renamed", customerRepository.findById(customer.getId()).orElseThrow().getName());
+        assertEquals(0, statistics.getPrepareStatementCount(), "Updated customer should be read from cache");
+        assertEquals(1, statistics.getDomainDataRegionStatistics(CUSTOMER_REGION).getHitCount());
+    }
+
+    @Test
+    public void currencyByCodeShouldBeServedFromQueryCache() {
+        final Currency currency = currencyRepository.findCurrencyByCode("EUR").orElseThrow();
+
+        statistics.clear();
+        assertEquals(currency, currencyRepository.findCurrencyByCode("EUR").orElseThrow());
+        assertEquals(0, statistics.getPrepareStatementCount(), "Currency should be found without a statement");
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void currencyShouldBeLoadedFromEntityCache() {
+        final Long id = currencyRepository.findCurrencyByCode("LVL").orElseThrow().getId();
+
+        statistics.clear();
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertEquals("LVL", entityManager.find(Currency.class, id).getCode());
+        } finally {
+            entityManager.close();
+        }
+        assertEquals(0, statistics.getPrepareStatementCount(), "Currency should be loaded without a statement");
+    }
+
+    @Test
+    public void refreshCurrenciesShouldReplaceCachedCurrencies() {
+        final Currency currency = currencyRepository.findCurrencyByCode("EUR").orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(Currency.class, currency.getId()));
+
+        jdbcTemplate.update("update currency set name = 'Renamed euro' where id = ?", currency.getId());
+        try {
+            currencyService.refreshCurrencies();
+            assertEquals("Renamed euro", currencyRepository.findById(currency.getId()).orElseThrow().getName(),
+                    "Currency changed in the table should not be served from cache after refresh");
+        } finally {
+            jdbcTemplate.update("update currency set name = ? where id = ?", currency.getName(), currency.getId());
+            currencyService.refreshCurrencies();
+        }
+    }
+
+    @Test
+    public void cacheStatisticsShouldBeExposedAsMetrics() throws Exception {
+        currencyRepository.findCurrencyByCode("EUR");
+
+        mockMvc.perform(get("/actuator/metrics/hibernate.second.level.cache.requests")
+                        .param("tag", "region:" + CUSTOMER_REGION))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").exists());
+        mockMvc.perform(get("/actuator/metrics/hibernate.cache.query.requests"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").exists());
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(TestFixtures.customer("Cache"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.customerdebtservice.shared;
+
+import com.example.customerdebtservice.currency.models.Currency;
+import com.example.customerdebtservice.customer.models.Customer;
+import com.example.customerdebtservice.debt.models.Debt;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entities for integration tests, which share one database, so every customer gets a unique email
+ */
+public final class TestFixtures {
+    public static final String PASSWORD = "password";
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private TestFixtures() {
+    }
+
+    /**
+     * @return unsaved customer with a unique email starting with the lower-cased name
+     */
+    public static Customer customer(String name) {
+        final Customer customer = new Customer();
+        customer.setName(name);
+        customer.setSurname("Customer");
+        customer.setCountry("Latvia");
+        customer.setEmail(uniqueEmail(name));
+        customer.setPassword(PASSWORD);
+        return customer;
+    }
+
+    /**
+     * @return unsaved debt, not added to debts of the customer
+     */
+    public static Debt debt(Customer customer, BigDecimal amount, LocalDate dueDate, Currency currency) {
+        return new Debt(null, amount, dueDate, customer, currency, null);
+    }
+
+    public static String uniqueEmail(String name) {
+        return name.toLowerCase(Locale.ROOT) + "-" + sequence.incrementAndGet() + "-" + System.nanoTime()
+                + "@test.com";
+    }
+}